@@ -0,0 +1,124 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.entity.Race;
+import com.game.models.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * фильтрация и сортировка хранилища по столбцам (PlayerColumns) на 1M и 10M синтетических игроков
+ * фильтры берутся из той же смеси PlayerGenerator.filter(), что и в PlayerListBenchmark, поэтому
+ * результаты можно сравнивать с запросами в H2
+ * игроки добавляются в хранилище по одному и сразу забываются, в куче остаются только массивы столбцов
+ * с -prof gc: память выделяется на вызов (план, одна порция строк, результат), а не на каждую проверяемую строку;
+ * у matchNothing результат пустой, и gc.alloc.rate.norm одинаков для 1M и 10M строк
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PlayerColumnsBenchmark {
+
+    private static final int FILTER_MIX_SIZE = 1024;
+
+    private static final PlayerSort BY_LEVEL = PlayerSort.of(PlayerOrder.LEVEL);
+
+    // уровень по убыванию, при равенстве - имя: сравнение цепочкой по двум столбцам
+    private static final PlayerSort LEADERBOARD = PlayerSort.valueOf("LEVEL:DESC,NAME:ASC");
+
+    private static final PlayerFilter NOTHING = new PlayerFilter(null, null, Race.ELF, null, null, null, null,
+            null, null, 1000, null);
+
+    @Param({"1000000", "10000000"})
+    int rows;
+
+    // потоков в пуле для matchParallel (остальные замеры от него не зависят, их можно запускать с -p parallelism=1)
+    // сравнение 1, 4, 16 показывает, насколько перебор масштабируется по ядрам
+    @Param({"1", "4", "16"})
+    int parallelism;
+
+    private ForkJoinPool pool;
+
+    private PlayerColumns columns;
+    private PlayerFilter[] filters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        columns = new PlayerColumns();
+        PlayerGenerator generator = new PlayerGenerator(42);
+        for (int i = 1; i <= rows; i++) {
+            Player player = generator.next();
+            player.setId((long) i);
+            columns.put(player);
+        }
+
+        pool = new ForkJoinPool(parallelism);
+
+        PlayerGenerator filterGenerator = new PlayerGenerator(7);
+        filters = new PlayerFilter[FILTER_MIX_SIZE];
+        for (int i = 0; i < FILTER_MIX_SIZE; i++) {
+            filters[i] = filterGenerator.filter();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public int[] match(Cursor cursor) {
+        return columns.match(filters[cursor.next++ & (FILTER_MIX_SIZE - 1)]);
+    }
+
+    // тот же фильтр, что и в match, с перебором по отрезкам в пуле из parallelism потоков
+    @Benchmark
+    public int[] matchParallel(Cursor cursor) {
+        return columns.match(filters[cursor.next++ & (FILTER_MIX_SIZE - 1)], pool, 0);
+    }
+
+    @Benchmark
+    public int[] matchAndTop20Leaderboard(Cursor cursor) {
+        return columns.top(columns.match(filters[cursor.next++ & (FILTER_MIX_SIZE - 1)]), LEADERBOARD, 20);
+    }
+
+    // перебираются все эльфы, но ни один не подходит по уровню
+    @Benchmark
+    public int[] matchNothing() {
+        return columns.match(NOTHING);
+    }
+
+    // отфильтровать и упорядочить по уровню, как GET /rest/players?order=LEVEL
+    @Benchmark
+    public int[] matchAndSortByLevel(Cursor cursor) {
+        return columns.sort(columns.match(filters[cursor.next++ & (FILTER_MIX_SIZE - 1)]), BY_LEVEL);
+    }
+
+    // первая страница из 20 игроков по уровню: упорядочиваются только 20 наименьших ключей
+    @Benchmark
+    public int[] matchAndTop20ByLevel(Cursor cursor) {
+        return columns.top(columns.match(filters[cursor.next++ & (FILTER_MIX_SIZE - 1)]), BY_LEVEL, 20);
+    }
+}
@@ -0,0 +1,82 @@
+package com.game.service;
+
+import com.game.config.AppConfig;
+import com.game.models.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlayerService.getPlayerList против встроенной H2 (профиль dev) с 10k и 1M синтетических игроков
+ * каждый вызов берет следующий фильтр из смеси PlayerGenerator.filter(), похожей на запросы к GET /rest/players
+ * кэш результатов запросов выключен, иначе замерялись бы попадания в него
+ * 10M строк в H2 в памяти не помещаются в разумную кучу, поэтому размер 10M есть только у PlayerSortBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g", "-Dplayer.query-cache.enabled=false"})
+public class PlayerListBenchmark {
+
+    private static final int FILTER_MIX_SIZE = 1024;
+
+    @Param({"10000", "1000000"})
+    int rows;
+
+    private AnnotationConfigWebApplicationContext context;
+    private PlayerService playerService;
+    private PlayerFilter[] filters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class);
+        context.refresh();
+
+        PlayerDataset.load(context, rows, 42);
+        playerService = context.getBean(PlayerService.class);
+
+        PlayerGenerator generator = new PlayerGenerator(7);
+        filters = new PlayerFilter[FILTER_MIX_SIZE];
+        for (int i = 0; i < FILTER_MIX_SIZE; i++) {
+            filters[i] = generator.filter();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public List<Player> getPlayerList(Cursor cursor) {
+        PlayerFilter filter = filters[cursor.next++ & (FILTER_MIX_SIZE - 1)];
+        return playerService.getPlayerList(filter.getName(), filter.getTitle(), filter.getRace(),
+                filter.getProfession(), filter.getAfter(), filter.getBefore(), filter.getBanned(),
+                filter.getMinExperience(), filter.getMaxExperience(), filter.getMinLevel(), filter.getMaxLevel());
+    }
+}
@@ -0,0 +1,98 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.models.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * страница в памяти и расчет уровня (PlayerSelection.page, PlayerServiceImpl.calculateLevel, calculateUntilNextLevel)
+ * на 10k, 1M и 10M синтетических игроков
+ * fullSortFirstPage - для сравнения: сортировка свежей копии всего списка ради первой страницы, как делали
+ * прежние sortPlayers + sortPage; копирование входит в замер
+ * Throughput - вызовов в секунду, SampleTime - перцентили времени вызова; с -prof gc - байты на вызов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class PlayerSortBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    int rows;
+
+    @Param({"NAME", "EXPERIENCE", "LEVEL"})
+    PlayerOrder order;
+
+    private List<Player> players;
+    private Comparator<Player> comparator;
+
+    @Setup
+    public void setUp() {
+        players = new PlayerGenerator(42).generate(rows);
+        // id по порядку, как у игроков из БД: при равенстве поля порядок решает id
+        for (int i = 0; i < rows; i++) {
+            players.get(i).setId((long) i + 1);
+        }
+        switch (order) {
+            case NAME:
+                comparator = Comparator.comparing(Player::getName);
+                break;
+            case EXPERIENCE:
+                comparator = Comparator.comparing(Player::getExperience);
+                break;
+            case LEVEL:
+                comparator = Comparator.comparing(Player::getLevel);
+                break;
+            default:
+                throw new IllegalArgumentException(order.name());
+        }
+        comparator = comparator.thenComparing(Player::getId);
+    }
+
+    @Benchmark
+    public List<Player> fullSortFirstPage() {
+        List<Player> copy = new ArrayList<>(players);
+        copy.sort(comparator);
+        return copy.subList(0, 20);
+    }
+
+    // та же первая страница из 20 игроков, что и у fullSortFirstPage, но отбором кучей без сортировки всего списка
+    @Benchmark
+    public List<Player> selectionFirstPage() {
+        return PlayerSelection.page(players, PlayerSort.of(order), 0, 20);
+    }
+
+    @Benchmark
+    public List<Player> selectionMiddlePage() {
+        return PlayerSelection.page(players, PlayerSort.of(order), rows / 40, 20);
+    }
+
+    // уровень и опыт до следующего уровня для всех игроков; результат - сумма, чтобы расчет не был выброшен
+    @Benchmark
+    public long calculateLevels() {
+        long sum = 0;
+        for (Player player : players) {
+            int level = PlayerServiceImpl.calculateLevel(player);
+            player.setLevel(level);
+            sum += level + PlayerServiceImpl.calculateUntilNextLevel(player);
+        }
+        return sum;
+    }
+}
@@ -1,12 +1,21 @@
 package com.game.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
@@ -17,6 +26,8 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Properties;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
@@ -25,8 +36,12 @@ import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.
 @EnableTransactionManagement
 @ComponentScan("com.game")
 @EnableJpaRepositories(basePackages = "com.game.repository")
+@PropertySource(value = "classpath:application.properties", encoding = "UTF-8")
 public class AppConfig {
 
+    @Autowired
+    private Environment environment;
+
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
@@ -42,27 +57,100 @@ public class AppConfig {
     }
 
     @Profile("prod")
-    @Bean
+    @Bean(destroyMethod = "close")
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/rpg?serverTimezone=UTC&characterEncoding=UTF-8");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+        HikariConfig config = poolConfig();
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl("jdbc:mysql://localhost:3306/rpg?serverTimezone=UTC&characterEncoding=UTF-8");
+        config.setUsername("root");
+        config.setPassword("root");
+        // кэш подготовленных выражений на стороне драйвера и сервера MySQL
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", environment.getProperty("db.pool.prep-stmt-cache-size", "250"));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", environment.getProperty("db.pool.prep-stmt-cache-sql-limit", "2048"));
+        // пачки INSERT (POST /rest/players/batch) отправляются одним многострочным INSERT
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        // с заданным fetchSize строки читаются курсором на сервере порциями, а не всем результатом сразу
+        config.addDataSourceProperty("useCursorFetch", "true");
+        return pool(config);
     }
 
     @Profile("dev")
-    @Bean(name = "dataSource")
+    @Bean(name = "dataSource", destroyMethod = "close")
     public DataSource dataSourceForTests() {
-
-        return new EmbeddedDatabaseBuilder()
+        // встроенная БД H2 за тем же пулом, что и в prod, чтобы настройки и метрики пула проверялись и здесь
+        HikariConfig config = poolConfig();
+        config.setDataSource(new EmbeddedDatabaseBuilder()
                 .generateUniqueName(true)
                 .setType(H2)
                 .setScriptEncoding("UTF-8")
                 .ignoreFailedDrops(true)
                 .addScript("test.sql")
-                .build();
+                .build());
+        return pool(config);
+    }
+
+    // журнал запросов дольше db.slow-query.threshold-ms (GET /rest/admin/slow-queries)
+    @Bean
+    public SlowQueryLog slowQueryLog() {
+        return new SlowQueryLog(environment.getProperty("db.slow-query.threshold-ms", Long.class, -1L),
+                environment.getProperty("db.slow-query.explain", Boolean.class, false));
+    }
+
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    // метрики запросов и методов сервиса и репозитория (RequestMetrics, MethodMetrics),
+    // GET /rest/admin/metrics отдает их в текстовом формате Prometheus
+    @Bean
+    public PrometheusMeterRegistry meterRegistry() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() != Meter.Type.TIMER) {
+                    return config;
+                }
+                // перцентили считаются в приложении по HDR-гистограммам за скользящее окно
+                return DistributionStatisticConfig.builder()
+                        .percentiles(0.5, 0.99, 0.999)
+                        .build()
+                        .merge(config);
+            }
+        });
+        return registry;
+    }
+
+    // пул соединений; с включенным журналом медленных запросов соединения из пула оборачиваются SlowQueryLog
+    private DataSource pool(HikariConfig config) {
+        SlowQueryLog slowQueryLog = slowQueryLog();
+        if (!slowQueryLog.isEnabled()) {
+            return new HikariDataSource(config);
+        }
+        return new HikariDataSource(config) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return slowQueryLog.wrap(super.getConnection());
+            }
+        };
+    }
+
+    // общие настройки пула соединений (application.properties, db.pool.*)
+    private HikariConfig poolConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("rpg");
+        config.setMaximumPoolSize(environment.getProperty("db.pool.maximum-size", Integer.class, 10));
+        config.setMinimumIdle(environment.getProperty("db.pool.minimum-idle", Integer.class, 10));
+        config.setConnectionTimeout(environment.getProperty("db.pool.connection-timeout-ms", Long.class, 30000L));
+        config.setIdleTimeout(environment.getProperty("db.pool.idle-timeout-ms", Long.class, 600000L));
+        config.setMaxLifetime(environment.getProperty("db.pool.max-lifetime-ms", Long.class, 1800000L));
+        // соединение, не возвращенное в пул дольше порога, пишется в лог со стеком места получения (0 - выключено)
+        config.setLeakDetectionThreshold(environment.getProperty("db.pool.leak-detection-threshold-ms", Long.class, 0L));
+        config.setMetricsTrackerFactory(poolMetrics());
+        return config;
     }
 
     @Bean
@@ -80,7 +168,23 @@ public class AppConfig {
 
     private Properties additionalProperties() {
         Properties properties = new Properties();
-        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.dialect", GameMySQLDialect.class.getName());
+        // списки id IN (...) дополняются до степени двойки, чтобы не плодить разные планы запросов
+        properties.setProperty("hibernate.query.in_clause_parameter_padding", "true");
+        // кэш второго уровня (JCache, Caffeine) только для сущностей, помеченных @Cacheable
+        properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+        properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+        properties.setProperty("hibernate.javax.cache.provider",
+                "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+        // регион кэша должен быть описан в application.conf, иначе он создавался бы без ограничения размера
+        properties.setProperty("hibernate.javax.cache.missing_cache_strategy", "fail");
+        properties.setProperty("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+        // счетчики запросов, загрузок, сбросов и кэша (GET /rest/admin/hibernate, GET /rest/admin/cache);
+        // выключаются db.statistics.enabled=false
+        properties.setProperty("hibernate.generate_statistics",
+                environment.getProperty("db.statistics.enabled", "true"));
+        // без сводки статистики в лог после каждой сессии
+        properties.setProperty("hibernate.session.events.log", "false");
 
         return properties;
     }
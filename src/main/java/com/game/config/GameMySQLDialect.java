@@ -0,0 +1,20 @@
+package com.game.config;
+
+import org.hibernate.dialect.MySQL5Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * MySQL5Dialect с функцией count_over(): COUNT(*) OVER () возвращает в каждой строке
+ * общее количество строк, подходящих под WHERE, без отдельного запроса count.
+ * Оконные функции поддерживаются MySQL 8 и H2 (профиль dev)
+ */
+public class GameMySQLDialect extends MySQL5Dialect {
+
+    public static final String COUNT_OVER = "count_over";
+
+    public GameMySQLDialect() {
+        super();
+        registerFunction(COUNT_OVER, new SQLFunctionTemplate(StandardBasicTypes.LONG, "count(*) over ()"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.game.config;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * статистика Hibernate (включается db.statistics.enabled): сессии, транзакции, сбросы, запросы,
+ * загрузки и изменения сущностей, кэш второго уровня и запросы с наибольшим общим временем
+ * время запросов Hibernate включает чтение строк и создание сущностей, но не сериализацию в JSON
+ */
+@Component
+public class HibernateStatistics {
+
+    private static final int TOP_QUERIES = 10;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public HibernateStatistics(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public Map<String, Object> snapshot() {
+        Statistics statistics = statistics();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", statistics.isStatisticsEnabled());
+        snapshot.put("sessionsOpened", statistics.getSessionOpenCount());
+        snapshot.put("transactions", statistics.getTransactionCount());
+        snapshot.put("flushes", statistics.getFlushCount());
+        snapshot.put("connections", statistics.getConnectCount());
+        snapshot.put("statements", statistics.getPrepareStatementCount());
+
+        snapshot.put("queries", statistics.getQueryExecutionCount());
+        snapshot.put("queryMaxMillis", statistics.getQueryExecutionMaxTime());
+        snapshot.put("slowestQuery", statistics.getQueryExecutionMaxTimeQueryString());
+
+        snapshot.put("entityLoads", statistics.getEntityLoadCount());
+        snapshot.put("entityFetches", statistics.getEntityFetchCount());
+        snapshot.put("entityInserts", statistics.getEntityInsertCount());
+        snapshot.put("entityUpdates", statistics.getEntityUpdateCount());
+        snapshot.put("entityDeletes", statistics.getEntityDeleteCount());
+        snapshot.put("optimisticFailures", statistics.getOptimisticFailureCount());
+
+        snapshot.put("cacheHits", statistics.getSecondLevelCacheHitCount());
+        snapshot.put("cacheMisses", statistics.getSecondLevelCacheMissCount());
+        snapshot.put("cachePuts", statistics.getSecondLevelCachePutCount());
+
+        snapshot.put("topQueries", topQueries(statistics));
+        return snapshot;
+    }
+
+    public void clear() {
+        statistics().clear();
+    }
+
+    private List<Map<String, Object>> topQueries(Statistics statistics) {
+        List<Map<String, Object>> queries = new ArrayList<>();
+        for (String query : statistics.getQueries()) {
+            QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("query", query);
+            entry.put("executions", queryStatistics.getExecutionCount());
+            entry.put("rows", queryStatistics.getExecutionRowCount());
+            entry.put("totalMillis", queryStatistics.getExecutionTotalTime());
+            entry.put("avgMillis", queryStatistics.getExecutionAvgTimeAsDouble());
+            entry.put("maxMillis", queryStatistics.getExecutionMaxTime());
+            queries.add(entry);
+        }
+        queries.sort(Comparator.comparing((Map<String, Object> entry) -> (Long) entry.get("totalMillis")).reversed());
+        return queries.size() > TOP_QUERIES ? new ArrayList<>(queries.subList(0, TOP_QUERIES)) : queries;
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
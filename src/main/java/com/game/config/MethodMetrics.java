@@ -0,0 +1,128 @@
+package com.game.config;
+
+import com.game.repository.PlayerRepository;
+import com.game.service.PlayerService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * метрики вызовов PlayerService и PlayerRepository:
+ * player.service и player.repository - время вызова по методу и исходу (success или класс исключения),
+ * player.repository.rows - сколько игроков вернул метод репозитория со списком или страницей
+ * бины оборачиваются прокси по интерфейсу; метры одного метода создаются один раз, поэтому вызов
+ * стоит двух чтений System.nanoTime() и записи в гистограмму
+ */
+@Component
+public class MethodMetrics implements BeanPostProcessor {
+
+    private static final String SUCCESS = "success";
+
+    private final ObjectProvider<MeterRegistry> registry;
+
+    public MethodMetrics(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof PlayerService) {
+            // списки сервиса уже посчитаны на уровне репозитория
+            return instrument(bean, PlayerService.class, "player.service", false);
+        }
+        if (bean instanceof PlayerRepository) {
+            return instrument(bean, PlayerRepository.class, "player.repository", true);
+        }
+        return bean;
+    }
+
+    private Object instrument(Object bean, Class<?> type, String name, boolean countRows) {
+        ProxyFactory factory = new ProxyFactory();
+        factory.setTarget(bean);
+        factory.addInterface(type);
+        factory.addAdvice(new Timing(registry.getObject(), name, countRows));
+        return factory.getProxy(type.getClassLoader());
+    }
+
+    private static class Timing implements MethodInterceptor {
+
+        private final MeterRegistry registry;
+        private final String name;
+        private final boolean countRows;
+        private final ConcurrentMap<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+        Timing(MeterRegistry registry, String name, boolean countRows) {
+            this.registry = registry;
+            this.name = name;
+            this.countRows = countRows;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            MethodMeters methodMeters = meters.computeIfAbsent(method, MethodMeters::new);
+            long start = System.nanoTime();
+            try {
+                Object result = invocation.proceed();
+                methodMeters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                methodMeters.rows(result);
+                return result;
+            } catch (Throwable e) {
+                methodMeters.failure(e).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        }
+
+        private class MethodMeters {
+
+            private final String method;
+            private final Timer success;
+            private final DistributionSummary rows;
+            private final ConcurrentMap<Class<?>, Timer> failures = new ConcurrentHashMap<>();
+
+            MethodMeters(Method method) {
+                this.method = method.getName();
+                this.success = timer(SUCCESS);
+                this.rows = isRowResult(method.getReturnType())
+                        ? DistributionSummary.builder(name + ".rows").tag("method", this.method).register(registry)
+                        : null;
+            }
+
+            Timer failure(Throwable e) {
+                return failures.computeIfAbsent(e.getClass(), type -> timer(type.getSimpleName()));
+            }
+
+            void rows(Object result) {
+                if (rows == null || result == null) {
+                    return;
+                }
+                rows.record(result instanceof Slice ? ((Slice<?>) result).getNumberOfElements()
+                        : ((Collection<?>) result).size());
+            }
+
+            private Timer timer(String outcome) {
+                return Timer.builder(name).tag("method", method).tag("outcome", outcome).register(registry);
+            }
+
+            private boolean isRowResult(Class<?> type) {
+                return countRows && (Collection.class.isAssignableFrom(type) || Slice.class.isAssignableFrom(type));
+            }
+        }
+    }
+}
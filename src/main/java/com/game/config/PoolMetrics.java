@@ -0,0 +1,78 @@
+package com.game.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * метрики пула соединений HikariCP: состояние пула (активные, простаивающие, ожидающие потоки)
+ * и время получения соединения из пула
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder created = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                created.increment();
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquired.increment();
+                acquireNanos.add(elapsedAcquiredNanos);
+                maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageMillis.add(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        PoolStats stats = poolStats;
+        snapshot.put("pool", poolName);
+        snapshot.put("active", stats == null ? 0 : stats.getActiveConnections());
+        snapshot.put("idle", stats == null ? 0 : stats.getIdleConnections());
+        snapshot.put("waiting", stats == null ? 0 : stats.getPendingThreads());
+        snapshot.put("total", stats == null ? 0 : stats.getTotalConnections());
+        snapshot.put("max", stats == null ? 0 : stats.getMaxConnections());
+        snapshot.put("min", stats == null ? 0 : stats.getMinConnections());
+
+        long count = acquired.sum();
+        snapshot.put("acquired", count);
+        snapshot.put("acquireAvgMicros", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(acquireNanos.sum() / count));
+        snapshot.put("acquireMaxMicros", TimeUnit.NANOSECONDS.toMicros(maxAcquireNanos.get()));
+        snapshot.put("usageAvgMillis", count == 0 ? 0 : usageMillis.sum() / count);
+        snapshot.put("connectionsCreated", created.sum());
+        snapshot.put("timeouts", timeouts.sum());
+        return snapshot;
+    }
+}
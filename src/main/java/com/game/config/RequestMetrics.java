@@ -0,0 +1,89 @@
+package com.game.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * время обработки запросов REST (таймер http.server.requests) по методу, шаблону адреса, коду ответа и исходу
+ * шаблон адреса (/rest/players/{id}), а не сам адрес, чтобы число метрик не росло с числом игроков
+ * таймер регистрируется один раз на сочетание метода, шаблона и кода ответа, дальше берется из timers
+ */
+@Component
+public class RequestMetrics implements HandlerInterceptor {
+
+    private static final String START = RequestMetrics.class.getName() + ".start";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<Key, Timer> timers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RequestMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object start = request.getAttribute(START);
+        if (start == null) {
+            return;
+        }
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // исключение, не превращенное в ответ обработчиками Spring, контейнер отдаст с кодом 500
+        int status = ex != null && response.getStatus() < 400 ? 500 : response.getStatus();
+        Key key = new Key(request.getMethod(), uri == null ? "UNKNOWN" : uri.toString(), status);
+        timers.computeIfAbsent(key, this::timer).record(System.nanoTime() - (Long) start, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(Key key) {
+        return Timer.builder("http.server.requests")
+                .tag("method", key.method)
+                .tag("uri", key.uri)
+                .tag("status", Integer.toString(key.status))
+                .tag("outcome", key.status >= 500 ? "SERVER_ERROR" : key.status >= 400 ? "CLIENT_ERROR" : "SUCCESS")
+                .register(registry);
+    }
+
+    private static final class Key {
+
+        private final String method;
+        private final String uri;
+        private final int status;
+
+        Key(String method, String uri, int status) {
+            this.method = method;
+            this.uri = uri;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return status == key.status && method.equals(key.method) && uri.equals(key.uri);
+        }
+
+        @Override
+        public int hashCode() {
+            return (method.hashCode() * 31 + uri.hashCode()) * 31 + status;
+        }
+    }
+}
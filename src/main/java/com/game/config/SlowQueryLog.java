@@ -0,0 +1,328 @@
+package com.game.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * журнал медленных запросов к БД (db.slow-query.*)
+ * соединения из пула оборачиваются прокси, который запоминает текст и параметры каждого выражения
+ * и считает время: executeMillis - выполнение в БД, totalMillis - вместе с чтением всех строк результата
+ * (для SELECT это чтение и разбор строк Hibernate), rows - прочитанные или измененные строки
+ * выражения дольше порога пишутся в лог и в список последних медленных запросов (GET /rest/admin/slow-queries)
+ * с explain=true к SELECT по таблице player добавляется план, полученный EXPLAIN с теми же параметрами
+ * прокси - это рефлексивный вызов на каждое обращение к JDBC, включая чтение каждого значения строки,
+ * поэтому журнал - средство разбора, а не постоянная настройка: по умолчанию он выключен и соединения не оборачиваются
+ */
+public class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final int RECENT_SIZE = 100;
+
+    private static final Pattern PLAYER_SELECT = Pattern.compile("^\\s*select\\b.*\\bfrom\\s+player\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final long thresholdNanos;
+    private final boolean explain;
+
+    private final Deque<Map<String, Object>> recent = new ArrayDeque<>();
+    private final LongAdder slowQueries = new LongAdder();
+
+    /**
+     * @param thresholdMillis порог в миллисекундах; меньше 0 - журнал выключен, 0 - в журнал попадают все запросы
+     */
+    public SlowQueryLog(long thresholdMillis, boolean explain) {
+        this.thresholdNanos = thresholdMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.explain = explain;
+    }
+
+    public boolean isEnabled() {
+        return thresholdNanos >= 0;
+    }
+
+    public Connection wrap(Connection connection) {
+        if (!isEnabled()) {
+            return connection;
+        }
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", isEnabled());
+        snapshot.put("thresholdMillis", isEnabled() ? TimeUnit.NANOSECONDS.toMillis(thresholdNanos) : -1);
+        snapshot.put("explain", explain);
+        snapshot.put("slowQueries", slowQueries.sum());
+        synchronized (recent) {
+            snapshot.put("recent", new ArrayList<>(recent));
+        }
+        return snapshot;
+    }
+
+    public void clear() {
+        synchronized (recent) {
+            recent.clear();
+        }
+    }
+
+    private void finish(Connection connection, String sql, Map<Integer, Object> params,
+                        long executeNanos, long totalNanos, long rows) {
+        if (totalNanos < thresholdNanos || sql == null) {
+            return;
+        }
+        slowQueries.increment();
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("sql", sql);
+        entry.put("params", new ArrayList<>(params.values()));
+        entry.put("rows", rows);
+        entry.put("executeMillis", TimeUnit.NANOSECONDS.toMillis(executeNanos));
+        entry.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(totalNanos));
+        String plan = explain && PLAYER_SELECT.matcher(sql).find() ? explain(connection, sql, params) : null;
+        if (plan != null) {
+            entry.put("explain", plan);
+        }
+        synchronized (recent) {
+            if (recent.size() == RECENT_SIZE) {
+                recent.removeFirst();
+            }
+            recent.addLast(entry);
+        }
+        log.warn("slow query {} ms (execute {} ms), {} rows: {} params {}{}", entry.get("totalMillis"),
+                entry.get("executeMillis"), rows, sql, entry.get("params"), plan == null ? "" : "\n" + plan);
+    }
+
+    // план выполняется на исходном соединении, поэтому сам в журнал не попадает
+    private static String explain(Connection connection, String sql, Map<Integer, Object> params) {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (Map.Entry<Integer, Object> param : params.entrySet()) {
+                statement.setObject(param.getKey(), param.getValue());
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                while (resultSet.next()) {
+                    for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                        plan.append(column == 1 ? "" : " | ").append(resultSet.getObject(column));
+                    }
+                    plan.append('\n');
+                }
+            }
+            return plan.toString().trim();
+        } catch (SQLException e) {
+            return "EXPLAIN failed: " + e.getMessage();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SlowQueryLog.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    // прокси равен только самому себе, как и обернутый объект
+    private static boolean isIdentityMethod(Method method) {
+        return method.getDeclaringClass() == Object.class
+                && (method.getName().equals("equals") || method.getName().equals("hashCode"));
+    }
+
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return method.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            Object result = SlowQueryLog.invoke(connection, method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler(connection, (Statement) result,
+                            (String) args[0]));
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler(connection, (Statement) result, null));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Connection connection;
+        private final Statement statement;
+        private String sql;
+        private final Map<Integer, Object> params = new TreeMap<>();
+        private ResultSetHandler openResult;
+
+        StatementHandler(Connection connection, Statement statement, String sql) {
+            this.connection = connection;
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                params.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                return SlowQueryLog.invoke(statement, method, args);
+            }
+            switch (name) {
+                case "clearParameters":
+                    params.clear();
+                    return SlowQueryLog.invoke(statement, method, args);
+                case "executeQuery":
+                    return executeQuery(method, args);
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeBatch":
+                case "executeLargeBatch":
+                case "execute":
+                    return execute(method, args);
+                case "close":
+                    if (openResult != null) {
+                        openResult.finish();
+                    }
+                    return SlowQueryLog.invoke(statement, method, args);
+                default:
+                    return SlowQueryLog.invoke(statement, method, args);
+            }
+        }
+
+        private Object executeQuery(Method method, Object[] args) throws Throwable {
+            if (args != null && args.length > 0) {
+                sql = (String) args[0];
+            }
+            long start = System.nanoTime();
+            ResultSet resultSet = (ResultSet) SlowQueryLog.invoke(statement, method, args);
+            openResult = new ResultSetHandler(this, resultSet, sql, new TreeMap<>(params), start,
+                    System.nanoTime() - start);
+            return proxy(ResultSet.class, openResult);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                sql = (String) args[0];
+            }
+            long start = System.nanoTime();
+            Object result = SlowQueryLog.invoke(statement, method, args);
+            long elapsed = System.nanoTime() - start;
+            finish(connection, sql, params, elapsed, elapsed, rows(result));
+            return result;
+        }
+
+        private long rows(Object result) throws SQLException {
+            if (result instanceof Number) {
+                return ((Number) result).longValue();
+            }
+            if (result instanceof int[]) {
+                long rows = 0;
+                for (int count : (int[]) result) {
+                    rows += Math.max(count, 0);
+                }
+                return rows;
+            }
+            if (result instanceof long[]) {
+                long rows = 0;
+                for (long count : (long[]) result) {
+                    rows += Math.max(count, 0);
+                }
+                return rows;
+            }
+            // execute(): true - результат читается отдельно, строки не считаются
+            return Boolean.TRUE.equals(result) ? -1 : statement.getUpdateCount();
+        }
+    }
+
+    private class ResultSetHandler implements InvocationHandler {
+
+        private final StatementHandler owner;
+        private final ResultSet resultSet;
+        private final String sql;
+        private final Map<Integer, Object> params;
+        private final long start;
+        private final long executeNanos;
+        private long rows;
+        private boolean finished;
+
+        ResultSetHandler(StatementHandler owner, ResultSet resultSet, String sql, Map<Integer, Object> params,
+                         long start, long executeNanos) {
+            this.owner = owner;
+            this.resultSet = resultSet;
+            this.sql = sql;
+            this.params = params;
+            this.start = start;
+            this.executeNanos = executeNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            Object result = SlowQueryLog.invoke(resultSet, method, args);
+            switch (method.getName()) {
+                case "next":
+                    if (Boolean.TRUE.equals(result)) {
+                        rows++;
+                    }
+                    break;
+                case "close":
+                    finish();
+                    break;
+                default:
+                    break;
+            }
+            return result;
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                if (owner.openResult == this) {
+                    owner.openResult = null;
+                }
+                SlowQueryLog.this.finish(owner.connection, sql, params, executeNanos, System.nanoTime() - start, rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.game.controller;
+
+import com.game.config.HibernateStatistics;
+import com.game.config.PoolMetrics;
+import com.game.config.SlowQueryLog;
+import com.game.service.ExperienceBuffer;
+import com.game.service.IndexAdvisor;
+import com.game.service.PlayerColumnStore;
+import com.game.service.PlayerEntityCache;
+import com.game.service.PlayerQueryCache;
+import com.game.service.PlayerSearchIndex;
+import com.game.service.UpdateConflictMetrics;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * служебные данные для настройки и наблюдения за приложением
+ */
+@RestController
+@RequestMapping("/rest/admin")
+public class AdminController {
+
+    private final IndexAdvisor indexAdvisor;
+
+    private final PlayerSearchIndex searchIndex;
+
+    private final PlayerColumnStore columnStore;
+
+    private final PoolMetrics poolMetrics;
+
+    private final PlayerEntityCache playerCache;
+
+    private final PlayerQueryCache queryCache;
+
+    private final ExperienceBuffer experienceBuffer;
+
+    private final UpdateConflictMetrics conflictMetrics;
+
+    private final PrometheusMeterRegistry meterRegistry;
+
+    private final HibernateStatistics hibernateStatistics;
+
+    private final SlowQueryLog slowQueryLog;
+
+    @Autowired
+    public AdminController(IndexAdvisor indexAdvisor, PlayerSearchIndex searchIndex,
+                           PlayerColumnStore columnStore, PoolMetrics poolMetrics,
+                           PlayerEntityCache playerCache, PlayerQueryCache queryCache,
+                           ExperienceBuffer experienceBuffer, UpdateConflictMetrics conflictMetrics,
+                           PrometheusMeterRegistry meterRegistry, HibernateStatistics hibernateStatistics,
+                           SlowQueryLog slowQueryLog) {
+        this.indexAdvisor = indexAdvisor;
+        this.searchIndex = searchIndex;
+        this.columnStore = columnStore;
+        this.poolMetrics = poolMetrics;
+        this.playerCache = playerCache;
+        this.queryCache = queryCache;
+        this.experienceBuffer = experienceBuffer;
+        this.conflictMetrics = conflictMetrics;
+        this.meterRegistry = meterRegistry;
+        this.hibernateStatistics = hibernateStatistics;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    // какие комбинации фильтров приходили в сервис и какой индекс их обслуживает
+    @GetMapping("/indexes")
+    public List<Map<String, Object>> getIndexReport() {
+        return indexAdvisor.report();
+    }
+
+    @DeleteMapping("/indexes")
+    public void resetIndexReport() {
+        indexAdvisor.reset();
+    }
+
+    // состояние триграммного индекса по name и title
+    @GetMapping("/search-index")
+    public Map<String, Object> getSearchIndexStats() {
+        return searchIndex.stats();
+    }
+
+    // заново построить триграммный индекс по БД (например, после изменения таблицы в обход приложения)
+    @PostMapping("/search-index/rebuild")
+    public Map<String, Object> rebuildSearchIndex() {
+        searchIndex.rebuild();
+        return searchIndex.stats();
+    }
+
+    // состояние хранилища игроков по столбцам (player.columnar.enabled)
+    @GetMapping("/columnar")
+    public Map<String, Object> getColumnStoreStats() {
+        return columnStore.stats();
+    }
+
+    // заново заполнить хранилище по столбцам из БД
+    @PostMapping("/columnar/rebuild")
+    public Map<String, Object> rebuildColumnStore() {
+        columnStore.rebuild();
+        return columnStore.stats();
+    }
+
+    // состояние пула соединений: активные, простаивающие и ожидающие, время получения соединения
+    @GetMapping("/pool")
+    public Map<String, Object> getPoolMetrics() {
+        return poolMetrics.snapshot();
+    }
+
+    // попадания и промахи кэша второго уровня для игроков
+    @GetMapping("/cache")
+    public Map<String, Object> getCacheStats() {
+        return playerCache.stats();
+    }
+
+    // очистить кэш игроков (например, после изменения таблицы в обход приложения)
+    @DeleteMapping("/cache")
+    public void evictCache() {
+        playerCache.evictAll();
+    }
+
+    // попадания, промахи и вытеснения кэша результатов списка и количества игроков
+    @GetMapping("/query-cache")
+    public Map<String, Object> getQueryCacheStats() {
+        return queryCache.stats();
+    }
+
+    @DeleteMapping("/query-cache")
+    public void invalidateQueryCache() {
+        queryCache.invalidate();
+    }
+
+    // буфер отложенной записи начислений опыта: сколько игроков ждут записи, сколько начислений и записей было
+    @GetMapping("/experience-buffer")
+    public Map<String, Object> getExperienceBufferStats() {
+        return experienceBuffer.stats();
+    }
+
+    // записать накопленные начисления в БД, не дожидаясь интервала
+    @PostMapping("/experience-buffer/flush")
+    public Map<String, Object> flushExperienceBuffer() {
+        experienceBuffer.flush();
+        return experienceBuffer.stats();
+    }
+
+    // конфликты одновременных изменений игроков: повторы, отказы 409/412 и игроки с наибольшим числом конфликтов
+    @GetMapping("/conflicts")
+    public Map<String, Object> getConflictMetrics() {
+        return conflictMetrics.snapshot();
+    }
+
+    // метрики запросов, методов сервиса и репозитория в текстовом формате Prometheus (для сбора раз в N секунд)
+    // ответ пишется напрямую: из конвертеров настроен только JSON
+    @GetMapping("/metrics")
+    public void getMetrics(HttpServletResponse response) throws IOException {
+        response.setContentType(TextFormat.CONTENT_TYPE_004);
+        meterRegistry.scrape(response.getWriter());
+    }
+
+    // статистика Hibernate: запросы, загрузки сущностей, сбросы сессии, кэш второго уровня
+    @GetMapping("/hibernate")
+    public Map<String, Object> getHibernateStatistics() {
+        return hibernateStatistics.snapshot();
+    }
+
+    @DeleteMapping("/hibernate")
+    public void clearHibernateStatistics() {
+        hibernateStatistics.clear();
+    }
+
+    // последние запросы к БД дольше db.slow-query.threshold-ms
+    @GetMapping("/slow-queries")
+    public Map<String, Object> getSlowQueries() {
+        return slowQueryLog.snapshot();
+    }
+
+    @DeleteMapping("/slow-queries")
+    public void clearSlowQueries() {
+        slowQueryLog.clear();
+    }
+}
@@ -1,17 +1,39 @@
 package com.game.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.game.config.WebConfig;
 import com.game.entity.Profession;
 import com.game.entity.Race;
+import com.game.exceptions.PreconditionFailedException;
 import com.game.models.Player;
+import com.game.models.PlayerBatchResult;
+import com.game.models.PlayerPage;
+import com.game.models.PlayerSlice;
+import com.game.service.PlayerFilter;
 import com.game.service.PlayerService;
+import com.game.service.PlayerSort;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/rest")
 public class PlayerController {
+    // формат выгрузки: по одному JSON-объекту игрока на строку (NDJSON)
+    static final String NDJSON = "application/x-ndjson";
+
+    private static final ObjectWriter PLAYER_WRITER = WebConfig.createObjectMapper()
+            .writerFor(Player.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
     @Autowired
     private PlayerService playerService;
 
@@ -37,7 +59,7 @@ public class PlayerController {
                                        @RequestParam(value = "maxExperience", required = false) Integer maxExperience,
                                        @RequestParam(value = "minLevel", required = false) Integer minLevel,
                                        @RequestParam(value = "maxLevel", required = false) Integer maxLevel,
-                                       @RequestParam(value = "order", required = false) PlayerOrder order,
+                                       @RequestParam(value = "order", required = false) PlayerSort order,
                                        @RequestParam(value = "pageNumber", required = false) Integer pageNumber,
                                        @RequestParam(value = "pageSize", required = false) Integer pageSize
     ) {
@@ -48,11 +70,99 @@ public class PlayerController {
         // Нумерация начинается с нуля
         // pageSize – параметр, который отвечает за количество результатов на одной странице при пейджинге
 
-        List<Player> playerList = playerService.getPlayerList(name, title, race, profession, after, before, banned,
+        // сортировка и выбор страницы выполняются в БД (ORDER BY ... LIMIT/OFFSET)
+        // order - одно или несколько полей с направлением: order=LEVEL:DESC,NAME:ASC
+        PlayerFilter filter = new PlayerFilter(name, title, race, profession, after, before, banned,
+                minExperience, maxExperience, minLevel, maxLevel);
+
+        return playerService.getPlayerPage(filter, order, pageNumber, pageSize);
+    }
+
+    // 8. получать страницу списка игроков и количество игроков, которые соответствуют фильтрам, одним запросом
+    // ответ: {"players": [...], "total": N}; параметры те же, что и у GET /rest/players
+    @GetMapping("/players/page")
+    public PlayerPage getPlayersPage(@RequestParam(value = "name", required = false) String name,
+                                     @RequestParam(value = "title", required = false) String title,
+                                     @RequestParam(value = "race", required = false) Race race,
+                                     @RequestParam(value = "profession", required = false) Profession profession,
+                                     @RequestParam(value = "after", required = false) Long after,
+                                     @RequestParam(value = "before", required = false) Long before,
+                                     @RequestParam(value = "banned", required = false) Boolean banned,
+                                     @RequestParam(value = "minExperience", required = false) Integer minExperience,
+                                     @RequestParam(value = "maxExperience", required = false) Integer maxExperience,
+                                     @RequestParam(value = "minLevel", required = false) Integer minLevel,
+                                     @RequestParam(value = "maxLevel", required = false) Integer maxLevel,
+                                     @RequestParam(value = "order", required = false) PlayerSort order,
+                                     @RequestParam(value = "pageNumber", required = false) Integer pageNumber,
+                                     @RequestParam(value = "pageSize", required = false) Integer pageSize
+    ) {
+        PlayerFilter filter = new PlayerFilter(name, title, race, profession, after, before, banned,
+                minExperience, maxExperience, minLevel, maxLevel);
+
+        return playerService.getPlayerPageWithTotal(filter, order, pageNumber, pageSize);
+    }
+
+    // 9. обходить весь отфильтрованный список игроков по курсору (для выгрузок и административных инструментов)
+    // первый запрос без параметра cursor, следующие - с курсором из поля "next" предыдущего ответа
+    // ответ: {"players": [...], "next": "..."}; "next" равен null, когда игроков больше нет
+    // курсор хранит значение одного поля сортировки, поэтому order здесь - одно поле по возрастанию
+    @GetMapping("/players/scroll")
+    public PlayerSlice scrollPlayers(@RequestParam(value = "name", required = false) String name,
+                                     @RequestParam(value = "title", required = false) String title,
+                                     @RequestParam(value = "race", required = false) Race race,
+                                     @RequestParam(value = "profession", required = false) Profession profession,
+                                     @RequestParam(value = "after", required = false) Long after,
+                                     @RequestParam(value = "before", required = false) Long before,
+                                     @RequestParam(value = "banned", required = false) Boolean banned,
+                                     @RequestParam(value = "minExperience", required = false) Integer minExperience,
+                                     @RequestParam(value = "maxExperience", required = false) Integer maxExperience,
+                                     @RequestParam(value = "minLevel", required = false) Integer minLevel,
+                                     @RequestParam(value = "maxLevel", required = false) Integer maxLevel,
+                                     @RequestParam(value = "order", required = false) PlayerOrder order,
+                                     @RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "pageSize", required = false) Integer pageSize
+    ) {
+        PlayerFilter filter = new PlayerFilter(name, title, race, profession, after, before, banned,
+                minExperience, maxExperience, minLevel, maxLevel);
+
+        return playerService.scrollPlayers(filter, order, cursor, pageSize);
+    }
+
+    // 11. выгружать весь отфильтрованный список игроков (для аналитики)
+    // фильтры и order те же, что и у GET /rest/players, но без страниц: игроки читаются из БД курсором
+    // и сразу пишутся в ответ по одному на строку, поэтому память не зависит от количества игроков
+    @GetMapping(value = "/players/export", produces = NDJSON)
+    public void exportPlayers(@RequestParam(value = "name", required = false) String name,
+                              @RequestParam(value = "title", required = false) String title,
+                              @RequestParam(value = "race", required = false) Race race,
+                              @RequestParam(value = "profession", required = false) Profession profession,
+                              @RequestParam(value = "after", required = false) Long after,
+                              @RequestParam(value = "before", required = false) Long before,
+                              @RequestParam(value = "banned", required = false) Boolean banned,
+                              @RequestParam(value = "minExperience", required = false) Integer minExperience,
+                              @RequestParam(value = "maxExperience", required = false) Integer maxExperience,
+                              @RequestParam(value = "minLevel", required = false) Integer minLevel,
+                              @RequestParam(value = "maxLevel", required = false) Integer maxLevel,
+                              @RequestParam(value = "order", required = false) PlayerSort order,
+                              HttpServletResponse response
+    ) throws IOException {
+        PlayerFilter filter = new PlayerFilter(name, title, race, profession, after, before, banned,
                 minExperience, maxExperience, minLevel, maxLevel);
-        List<Player> sortedPlayers = playerService.sortPlayers(playerList, order);
 
-        return playerService.sortPage(sortedPlayers, pageNumber, pageSize);
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        try (JsonGenerator generator = PLAYER_WRITER.getFactory().createGenerator(response.getOutputStream())) {
+            // объекты разделяются только переводом строки
+            generator.setRootValueSeparator(null);
+            playerService.exportPlayers(filter, order, player -> {
+                try {
+                    PLAYER_WRITER.writeValue(generator, player);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
     // 7. получать количество игроков, которые соответствуют фильтрам
@@ -70,8 +180,10 @@ public class PlayerController {
                                    @RequestParam(value = "maxLevel", required = false) Integer maxLevel
     ) {
 
-        return playerService.getPlayerList(name, title, race, profession, after, before, banned,
-                minExperience, maxExperience, minLevel, maxLevel).size();
+        PlayerFilter filter = new PlayerFilter(name, title, race, profession, after, before, banned,
+                minExperience, maxExperience, minLevel, maxLevel);
+
+        return Math.toIntExact(playerService.countPlayers(filter));
     }
 
     // 2. создавать нового игрока
@@ -91,26 +203,48 @@ public class PlayerController {
         return playerService.createPlayer(player);
     }
 
+    // 10. создавать много игроков одним запросом (импорт)
+    // тело - JSON-массив игроков в формате POST /rest/players; игроки с ошибками пропускаются,
+    // ответ: {"created": N, "rejected": M, "items": [{"index": 0, "id": 41, "error": null}, ...]}
+    @PostMapping("/players/batch")
+    public PlayerBatchResult createPlayers(@RequestBody List<Player> players) {
+        return playerService.createPlayers(players);
+    }
+
     // 5. получать игрока по id;
     // с помощью аннотации @PathVariable мы извлечем этот id из url и получим к нему доступ внутри этого метода
+    // версия игрока возвращается в заголовке ETag, ее можно передать в If-Match при изменении
     @GetMapping ("players/{id}")
-    public Player getPlayer(@PathVariable(value = "id") Long id) {
+    public ResponseEntity<Player> getPlayer(@PathVariable(value = "id") Long id) {
         // Если игрок не найден в БД, необходимо ответить ошибкой с кодом 404.
         // Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
 
-        return playerService.findById(id);
+        return withETag(playerService.findById(id));
     }
 
     // 3. редактировать характеристики существующего игрока
+    // с заголовком If-Match игрок изменяется, только если его версия совпадает с ETag, иначе ошибка с кодом 412;
+    // без него изменение, столкнувшееся с одновременным изменением, повторяется, а если не удалось - ошибка 409
     @PostMapping("players/{id}")
-    public Player updatePlayer(@PathVariable(value = "id") Long id,
-                               // Значения параметров преобразуются в объявленный тип аргумента метода
-                               @RequestBody Player player) {
+    public ResponseEntity<Player> updatePlayer(@PathVariable(value = "id") Long id,
+                                               // Значения параметров преобразуются в объявленный тип аргумента метода
+                                               @RequestBody Player player,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         // Обновлять нужно только те поля, которые не null.
         // Если игрок не найден в БД, необходимо ответить ошибкой с кодом 404.
         // Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
 
-        return playerService.updatePlayer(id, player);
+        return withETag(playerService.updatePlayer(id, player, parseIfMatch(ifMatch)));
+    }
+
+    // 12. начислять опыт игроку: к опыту прибавляется delta (может быть отрицательным),
+    // уровень пересчитывается; одновременные начисления одному игроку не теряются
+    // Если игрок не найден в БД, необходимо ответить ошибкой с кодом 404.
+    // Если значение id не валидное или delta не указан, необходимо ответить ошибкой с кодом 400.
+    @PostMapping("players/{id}/experience")
+    public Player addExperience(@PathVariable(value = "id") Long id,
+                                @RequestParam(value = "delta", required = false) Integer delta) {
+        return playerService.addExperience(id, delta);
     }
 
     // 4. удалять игрока
@@ -121,4 +255,32 @@ public class PlayerController {
         // Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
         playerService.deleteById(id);
     }
+
+    private static ResponseEntity<Player> withETag(Player player) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (player.getVersion() != null) {
+            response.eTag(player.getVersion().toString());
+        }
+        return response.body(player);
+    }
+
+    // версия из If-Match: "3" или W/"3"; null - заголовка нет или указан "*"
+    private static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            // такой версии у игрока быть не может
+            throw new PreconditionFailedException("unknown entity tag " + ifMatch);
+        }
+    }
 }
@@ -2,6 +2,10 @@ package com.game.models;
 
 import com.game.entity.Profession;
 import com.game.entity.Race;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.GenericGenerator;
 
 
@@ -11,8 +15,24 @@ import javax.persistence.Table;
 import java.util.Date;
 
 @Entity
-@Table(name = "player")
+@Table(name = "player", indexes = {
+        // те же индексы, что создаются в init.sql и test.sql (см. com.game.repository.PlayerIndex)
+        @Index(name = "idx_player_race_profession_banned", columnList = "race, profession, banned, experience, level"),
+        @Index(name = "idx_player_banned_level", columnList = "banned, level"),
+        @Index(name = "idx_player_experience", columnList = "experience"),
+        @Index(name = "idx_player_level", columnList = "level"),
+        @Index(name = "idx_player_birthday", columnList = "birthday"),
+        @Index(name = "idx_player_name", columnList = "name")
+})
+// игроки по id кэшируются в кэше второго уровня (настройки региона - application.conf)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Player.CACHE_REGION)
+// UPDATE содержит только измененные поля
+@DynamicUpdate
 public class Player {
+
+    public static final String CACHE_REGION = "player";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
@@ -49,6 +69,12 @@ public class Player {
     @Column(name = "banned")
     private Boolean banned;
 
+    // версия для оптимистической блокировки; клиентам передается заголовком ETag, а не в теле
+    @Version
+    @Column(name = "version")
+    @JsonIgnore
+    private Long version;
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -89,6 +115,10 @@ public class Player {
         this.banned = banned;
     }
 
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -144,4 +174,8 @@ public class Player {
     public Boolean getBanned() {
         return banned;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
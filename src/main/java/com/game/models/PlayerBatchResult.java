@@ -0,0 +1,70 @@
+package com.game.models;
+
+import java.util.List;
+
+/**
+ * результат POST /rest/players/batch
+ * items - по одному элементу на каждого игрока из запроса в том же порядке:
+ * id созданного игрока или причина, по которой он не создан
+ */
+public class PlayerBatchResult {
+
+    private final int created;
+
+    private final int rejected;
+
+    private final List<Item> items;
+
+    public PlayerBatchResult(int created, int rejected, List<Item> items) {
+        this.created = created;
+        this.rejected = rejected;
+        this.items = items;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public static class Item {
+
+        private final int index;
+
+        private final Long id;
+
+        private final String error;
+
+        private Item(int index, Long id, String error) {
+            this.index = index;
+            this.id = id;
+            this.error = error;
+        }
+
+        public static Item created(int index, Long id) {
+            return new Item(index, id, null);
+        }
+
+        public static Item rejected(int index, String error) {
+            return new Item(index, null, error);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
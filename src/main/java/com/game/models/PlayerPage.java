@@ -0,0 +1,26 @@
+package com.game.models;
+
+import java.util.List;
+
+/**
+ * страница списка игроков вместе с общим количеством игроков, подходящих под фильтры
+ */
+public class PlayerPage {
+
+    private final List<Player> players;
+
+    private final long total;
+
+    public PlayerPage(List<Player> players, long total) {
+        this.players = players;
+        this.total = total;
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
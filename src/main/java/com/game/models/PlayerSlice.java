@@ -0,0 +1,27 @@
+package com.game.models;
+
+import java.util.List;
+
+/**
+ * часть списка игроков при обходе по курсору
+ * next - курсор для получения следующей части, null если игроков больше нет
+ */
+public class PlayerSlice {
+
+    private final List<Player> players;
+
+    private final String next;
+
+    public PlayerSlice(List<Player> players, String next) {
+        this.players = players;
+        this.next = next;
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public String getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,37 @@
+package com.game.repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * индексы таблицы player (init.sql для MySQL, test.sql для H2)
+ * при изменении индексов нужно поменять оба скрипта и этот список
+ * во вторичных индексах InnoDB неявно хранится первичный ключ, поэтому индекс по (experience)
+ * обслуживает и сортировку (experience, id), которую используют список и обход по курсору
+ */
+public enum PlayerIndex {
+    PRIMARY("PRIMARY", "id"),
+    RACE_PROFESSION_BANNED("idx_player_race_profession_banned", "race", "profession", "banned", "experience", "level"),
+    BANNED_LEVEL("idx_player_banned_level", "banned", "level"),
+    EXPERIENCE("idx_player_experience", "experience"),
+    LEVEL("idx_player_level", "level"),
+    BIRTHDAY("idx_player_birthday", "birthday"),
+    NAME("idx_player_name", "name");
+
+    private final String indexName;
+    private final List<String> columns;
+
+    PlayerIndex(String indexName, String... columns) {
+        this.indexName = indexName;
+        this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+}
@@ -1,9 +1,20 @@
 package com.game.repository;
 
 import com.game.models.Player;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface PlayerRepository extends JpaRepository<Player,Long> {
+public interface PlayerRepository extends JpaRepository<Player,Long>, JpaSpecificationExecutor<Player>,
+        PlayerRepositoryCustom {
+
+    // id, name и title игроков с id больше afterId по возрастанию id (для построения индексов в памяти)
+    @Query("select p.id, p.name, p.title from Player p where p.id > :afterId order by p.id")
+    List<Object[]> findSearchFields(@Param("afterId") long afterId, Pageable pageable);
 }
@@ -0,0 +1,43 @@
+package com.game.repository;
+
+import com.game.models.Player;
+import com.game.models.PlayerPage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface PlayerRepositoryCustom {
+
+    // одна страница отфильтрованных игроков (ORDER BY ... LIMIT/OFFSET) без дополнительного запроса count
+    List<Player> findPage(Specification<Player> specification, Pageable pageable);
+
+    // страница игроков и общее количество подходящих строк за один проход по таблице (COUNT(*) OVER ())
+    PlayerPage findPageWithTotal(Specification<Player> specification, Pageable pageable);
+
+    // обход всех подходящих игроков курсором только вперед: строки читаются из БД порциями по fetchSize,
+    // и в памяти одновременно держится не больше одной порции
+    void forEach(Specification<Player> specification, Sort sort, int fetchSize, Consumer<Player> action);
+
+    // изменить игрока в одной транзакции: поиск по id (без запроса, если игрок есть в кэше второго уровня)
+    // и UPDATE только измененных полей; пустой Optional - игрока нет
+    Optional<Player> update(Long id, Consumer<Player> changes);
+
+    // один запрос DELETE ... WHERE id = ?; возвращает количество удаленных строк (0 - игрока нет)
+    // игрок остается в кэше второго уровня, его нужно вытеснить после завершения транзакции
+    int deleteIfExists(Long id);
+
+    // атомарно прибавить delta к опыту (с ограничением 0..10,000,000) и пересчитать уровень одним UPDATE;
+    // пустой Optional - игрока нет; игрок остается в кэше второго уровня, его нужно вытеснить после транзакции
+    Optional<Player> addExperience(Long id, int delta);
+
+    // то же для многих игроков одной пачкой UPDATE в одной транзакции (ключ - id игрока, значение - delta)
+    void addExperience(Map<Long, Integer> deltas);
+
+    // вставка игроков пачками JDBC (addBatch/executeBatch) в одной транзакции; id проставляются в переданные объекты
+    void insertAll(List<Player> players);
+}
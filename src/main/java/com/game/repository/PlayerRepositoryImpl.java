@@ -0,0 +1,305 @@
+package com.game.repository;
+
+import com.game.config.GameMySQLDialect;
+import com.game.models.Player;
+import com.game.models.PlayerPage;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * запросы к таблице player, которые нельзя выразить через методы JpaRepository
+ */
+@Transactional(readOnly = true)
+public class PlayerRepositoryImpl implements PlayerRepositoryCustom {
+
+    // сколько строк отправляется в БД одним executeBatch
+    static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO player"
+            + " (name, title, race, profession, birthday, banned, experience, level, untilNextLevel)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_SQL = "DELETE FROM player WHERE id = ?";
+
+    // новый опыт, ограниченный диапазоном 0..10,000,000, и уровень по той же формуле, что и в PlayerServiceImpl
+    private static final String NEW_EXPERIENCE = "LEAST(GREATEST(experience + ?, 0), 10000000)";
+    private static final String NEW_LEVEL = "FLOOR((SQRT(2500 + 200 * " + NEW_EXPERIENCE + ") - 50) / 100)";
+    // MySQL вычисляет присваивания SET слева направо уже по новым значениям, H2 - по старым,
+    // поэтому experience присваивается последним, а выражения для level и untilNextLevel ссылаются только на него
+    private static final String ADD_EXPERIENCE_SQL = "UPDATE player SET"
+            + " level = " + NEW_LEVEL + ","
+            + " untilNextLevel = 50 * (" + NEW_LEVEL + " + 1) * (" + NEW_LEVEL + " + 2) - " + NEW_EXPERIENCE + ","
+            // изменение в обход Hibernate тоже меняет версию, чтобы оптимистическая блокировка его заметила
+            + " version = version + 1,"
+            + " experience = " + NEW_EXPERIENCE
+            + " WHERE id = ?";
+    private static final int ADD_EXPERIENCE_PARAMETERS = 5;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Player> findPage(Specification<Player> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Player> query = cb.createQuery(Player.class);
+        Root<Player> root = query.from(Player.class);
+
+        Predicate where = specification.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.select(root).orderBy(toOrders(pageable.getSort(), root, cb));
+
+        return page(entityManager.createQuery(query), pageable).getResultList();
+    }
+
+    @Override
+    public PlayerPage findPageWithTotal(Specification<Player> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Player> root = query.from(Player.class);
+
+        Predicate where = specification.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        // окно считается по всем строкам, подходящим под WHERE, до применения LIMIT/OFFSET
+        query.multiselect(root, cb.function(GameMySQLDialect.COUNT_OVER, Long.class))
+                .orderBy(toOrders(pageable.getSort(), root, cb));
+
+        List<Tuple> rows = page(entityManager.createQuery(query), pageable).getResultList();
+        if (rows.isEmpty()) {
+            // страница за пределами результата: общее количество узнать из строк нельзя
+            return new PlayerPage(Collections.emptyList(), pageable.getOffset() == 0 ? 0 : count(specification));
+        }
+
+        List<Player> players = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            players.add(row.get(0, Player.class));
+        }
+        return new PlayerPage(players, rows.get(0).get(1, Long.class));
+    }
+
+    @Override
+    public void forEach(Specification<Player> specification, Sort sort, int fetchSize, Consumer<Player> action) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Player> query = cb.createQuery(Player.class);
+        Root<Player> root = query.from(Player.class);
+
+        Predicate where = specification.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.select(root).orderBy(toOrders(sort, root, cb));
+
+        Query<?> scrollQuery = entityManager.createQuery(query).unwrap(Query.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE);
+        try (ScrollableResults rows = scrollQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+            int read = 0;
+            while (rows.next()) {
+                action.accept((Player) rows.get(0));
+                // прочитанные игроки больше не нужны: не даем им копиться в контексте персистентности
+                if (++read % fetchSize == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public Optional<Player> update(Long id, Consumer<Player> changes) {
+        Player player = entityManager.find(Player.class, id);
+        if (player == null) {
+            return Optional.empty();
+        }
+        // изменения записываются при завершении транзакции (Player помечен @DynamicUpdate)
+        changes.accept(player);
+        return Optional.of(player);
+    }
+
+    /**
+     * в отличие от deleteById из JpaRepository игрок не загружается перед удалением,
+     * а в отличие от запроса HQL delete не сбрасывается весь регион кэша второго уровня
+     */
+    @Override
+    @Transactional
+    public int deleteIfExists(Long id) {
+        return executeUpdate(DELETE_SQL, statement -> statement.setLong(1, id));
+    }
+
+    /**
+     * опыт меняется одним UPDATE: строка блокируется в БД на время изменения,
+     * поэтому одновременные начисления одному игроку не теряются
+     * затем игрок читается в той же транзакции, минуя кэш второго уровня
+     */
+    @Override
+    @Transactional
+    public Optional<Player> addExperience(Long id, int delta) {
+        int updated = executeUpdate(ADD_EXPERIENCE_SQL, statement -> bindAddExperience(statement, id, delta));
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        Map<String, Object> bypassCache = new HashMap<>();
+        bypassCache.put("javax.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS);
+        bypassCache.put("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+        return Optional.of(entityManager.find(Player.class, id, bypassCache));
+    }
+
+    @Override
+    @Transactional
+    public void addExperience(Map<Long, Integer> deltas) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        JdbcCoordinator jdbc = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbc.getStatementPreparer().prepareStatement(ADD_EXPERIENCE_SQL);
+        try {
+            int batched = 0;
+            for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+                bindAddExperience(statement, delta.getKey(), delta.getValue());
+                statement.addBatch();
+                if (++batched % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            if (batched % BATCH_SIZE != 0) {
+                statement.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not update player", ADD_EXPERIENCE_SQL);
+        } finally {
+            jdbc.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbc.afterStatementExecution();
+        }
+    }
+
+    private static void bindAddExperience(PreparedStatement statement, Long id, int delta) throws SQLException {
+        for (int i = 1; i <= ADD_EXPERIENCE_PARAMETERS; i++) {
+            statement.setInt(i, delta);
+        }
+        statement.setLong(ADD_EXPERIENCE_PARAMETERS + 1, id);
+    }
+
+    // выражение выполняется через JdbcCoordinator сессии, поэтому учитывается в статистике Hibernate;
+    // кэш второго уровня не обновляется - измененных игроков вытесняет вызывающий код
+    private int executeUpdate(String sql, StatementBinder binder) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        JdbcCoordinator jdbc = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbc.getStatementPreparer().prepareStatement(sql);
+        try {
+            binder.bind(statement);
+            return jdbc.getResultSetReturn().executeUpdate(statement);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not update player", sql);
+        } finally {
+            jdbc.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbc.afterStatementExecution();
+        }
+    }
+
+    private interface StatementBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    /**
+     * id по-прежнему выдает AUTO_INCREMENT: Hibernate не группирует вставки с IDENTITY,
+     * поэтому строки вставляются напрямую через JDBC на соединении текущей транзакции,
+     * а сгенерированные ключи читаются после каждой пачки (в MySQL с rewriteBatchedStatements=true
+     * пачка уходит одним многострочным INSERT)
+     */
+    @Override
+    @Transactional
+    public void insertAll(List<Player> players) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < players.size(); from += BATCH_SIZE) {
+                    List<Player> batch = players.subList(from, Math.min(from + BATCH_SIZE, players.size()));
+                    for (Player player : batch) {
+                        bind(statement, player);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Player player : batch) {
+                            keys.next();
+                            player.setId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement statement, Player player) throws SQLException {
+        statement.setString(1, player.getName());
+        statement.setString(2, player.getTitle());
+        statement.setString(3, player.getRace() == null ? null : player.getRace().name());
+        statement.setString(4, player.getProfession() == null ? null : player.getProfession().name());
+        // так же, как Hibernate сохраняет поле с @Temporal(TemporalType.DATE)
+        statement.setDate(5, new java.sql.Date(player.getBirthday().getTime()));
+        if (player.getBanned() == null) {
+            statement.setNull(6, Types.BIT);
+        } else {
+            statement.setBoolean(6, player.getBanned());
+        }
+        statement.setInt(7, player.getExperience());
+        statement.setInt(8, player.getLevel());
+        statement.setInt(9, player.getUntilNextLevel());
+    }
+
+    private long count(Specification<Player> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Player> root = query.from(Player.class);
+
+        Predicate where = specification.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.select(cb.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static <T> TypedQuery<T> page(TypedQuery<T> query, Pageable pageable) {
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query;
+    }
+}
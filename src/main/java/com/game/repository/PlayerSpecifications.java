@@ -0,0 +1,128 @@
+package com.game.repository;
+
+import com.game.models.Player;
+import com.game.service.PlayerFilter;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * перевод фильтров GET /rest/players в условие WHERE,
+ * чтобы фильтрация выполнялась в БД, а не перебором всех игроков в java
+ */
+public final class PlayerSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private PlayerSpecifications() {
+    }
+
+    public static Specification<Player> byFilter(PlayerFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = toPredicates(filter, root, cb);
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * игроки с id из отсортированного массива ids (кандидаты из индекса в памяти)
+     */
+    public static Specification<Player> idIn(long[] ids) {
+        return (root, query, cb) -> {
+            if (ids.length == 0) {
+                return cb.disjunction();
+            }
+            List<Long> values = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                values.add(id);
+            }
+            return root.get("id").in(values);
+        };
+    }
+
+    static List<Predicate> toPredicates(PlayerFilter filter, Root<Player> root, CriteriaBuilder cb) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        // Поиск по полям name и title происходить по частичному соответствию.
+        // Например, если в БД есть игрок с именем «Камираж», а параметр name задан как «ир»
+        // - такой игрок должен отображаться в результатах (Камираж)
+        if (filter.getName() != null) {
+            predicates.add(contains(cb, root.<String>get("name"), filter.getName()));
+        }
+        if (filter.getTitle() != null) {
+            predicates.add(contains(cb, root.<String>get("title"), filter.getTitle()));
+        }
+        if (filter.getRace() != null) {
+            predicates.add(cb.equal(root.get("race"), filter.getRace()));
+        }
+        if (filter.getProfession() != null) {
+            predicates.add(cb.equal(root.get("profession"), filter.getProfession()));
+        }
+        // birthday хранится как DATE, поэтому границы after/before (строгие, в миллисекундах)
+        // переводим в ближайшие подходящие даты, иначе при передаче параметра как DATE
+        // время внутри дня отбрасывалось бы и результат отличался бы от Date.after/Date.before
+        if (filter.getAfter() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.<Date>get("birthday"), firstDateAfter(filter.getAfter())));
+        }
+        if (filter.getBefore() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.<Date>get("birthday"), lastDateBefore(filter.getBefore())));
+        }
+        if (filter.getBanned() != null) {
+            predicates.add(cb.equal(root.get("banned"), filter.getBanned()));
+        }
+        if (filter.getMinExperience() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.<Integer>get("experience"), filter.getMinExperience()));
+        }
+        if (filter.getMaxExperience() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.<Integer>get("experience"), filter.getMaxExperience()));
+        }
+        if (filter.getMinLevel() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.<Integer>get("level"), filter.getMinLevel()));
+        }
+        if (filter.getMaxLevel() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.<Integer>get("level"), filter.getMaxLevel()));
+        }
+        return predicates;
+    }
+
+    private static Predicate contains(CriteriaBuilder cb, Expression<String> field, String value) {
+        return cb.like(field, "%" + escapeLike(value) + "%", LIKE_ESCAPE);
+    }
+
+    // символы % и _ в строке поиска должны искаться как обычные символы
+    private static String escapeLike(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                sb.append(LIKE_ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    // первая дата, полночь которой строго позже after (полночь дня, содержащего after, не позже него)
+    public static java.sql.Date firstDateAfter(long after) {
+        LocalDate date = Instant.ofEpochMilli(after).atZone(ZoneId.systemDefault()).toLocalDate();
+        return java.sql.Date.valueOf(date.plusDays(1));
+    }
+
+    // последняя дата, полночь которой строго раньше before
+    public static java.sql.Date lastDateBefore(long before) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate date = Instant.ofEpochMilli(before).atZone(zone).toLocalDate();
+        if (date.atStartOfDay(zone).toInstant().toEpochMilli() >= before) {
+            date = date.minusDays(1);
+        }
+        return java.sql.Date.valueOf(date);
+    }
+}
@@ -0,0 +1,219 @@
+package com.game.service;
+
+import com.game.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * отложенная запись начислений опыта (включается player.experience.write-behind.enabled)
+ * начисления складываются по id игрока в памяти и записываются в БД пачкой UPDATE раз в flush-interval-ms
+ * или раньше, когда в буфере набирается max-pending игроков; при остановке приложения буфер записывается в БД
+ * всем начислениям одному игроку соответствует один UPDATE с их суммой, поэтому ограничение
+ * опыта 0..10,000,000 применяется к сумме, а не к каждому начислению
+ * списки и фильтры по опыту и уровню видят начисления только после записи в БД
+ */
+@Component
+public class ExperienceBuffer implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ExperienceBuffer.class);
+
+    private final PlayerRepository playerRepository;
+    private final PlayerEntityCache playerCache;
+    private final PlayerQueryCache queryCache;
+    private final PlayerColumnStore columnStore;
+    private final boolean enabled;
+    private final int maxPending;
+
+    // еще не записанные начисления по id игрока: у каждого игрока своя ячейка LongAdder,
+    // поэтому одновременные начисления одному игроку не блокируют друг друга, а повторные не создают объектов
+    // при записи ячейка сначала убирается из карты, а затем из нее вычитается перенесенная сумма (drain):
+    // начисление, попавшее в уже убранную ячейку, не теряется, а переносится в новую (addPending)
+    private final ConcurrentMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final LongAdder buffered = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedPlayers = new LongAdder();
+
+    @Autowired
+    public ExperienceBuffer(PlayerRepository playerRepository, PlayerEntityCache playerCache,
+                            PlayerQueryCache queryCache, PlayerColumnStore columnStore,
+                            @Value("${player.experience.write-behind.enabled:false}") boolean enabled,
+                            @Value("${player.experience.write-behind.flush-interval-ms:1000}") long flushIntervalMillis,
+                            @Value("${player.experience.write-behind.max-pending:10000}") int maxPending) {
+        this.playerRepository = playerRepository;
+        this.playerCache = playerCache;
+        this.queryCache = queryCache;
+        this.columnStore = columnStore;
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+        if (enabled) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "experience-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void add(Long id, int delta) {
+        addPending(id, delta);
+        buffered.increment();
+        if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * сумма еще не записанных в БД начислений игроку
+     */
+    public long pendingDelta(Long id) {
+        LongAdder cell = pending.get(id);
+        return cell == null ? 0 : cell.sum();
+    }
+
+    /**
+     * забыть начисления игроку (игрок удален)
+     */
+    public void discard(Long id) {
+        pending.remove(id);
+    }
+
+    /**
+     * записать в БД начисления одному игроку (перед изменением игрока через updatePlayer)
+     * синхронизирован с flush(): если ячейку игрока уже забрала идущая запись всего буфера,
+     * то ее начисления попадут в БД до изменения игрока, а не поверх него
+     */
+    public synchronized void flush(Long id) {
+        LongAdder cell = pending.remove(id);
+        long delta = cell == null ? 0 : drain(cell);
+        if (delta != 0) {
+            Map<Long, Long> deltas = new HashMap<>();
+            deltas.put(id, delta);
+            write(deltas);
+        }
+    }
+
+    /**
+     * записать в БД все накопленные начисления
+     */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Long id : pending.keySet()) {
+            LongAdder cell = pending.remove(id);
+            long delta = cell == null ? 0 : drain(cell);
+            if (delta != 0) {
+                deltas.merge(id, delta, Long::sum);
+            }
+        }
+        if (!deltas.isEmpty()) {
+            write(deltas);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pendingPlayers", pending.size());
+        stats.put("bufferedGrants", buffered.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("flushedPlayers", flushedPlayers.sum());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    private void write(Map<Long, Long> deltas) {
+        Map<Long, Integer> bounded = new HashMap<>();
+        deltas.forEach((id, delta) -> bounded.put(id, (int) Math.max(-PlayerServiceImpl.MAX_EXPERIENCE,
+                Math.min(PlayerServiceImpl.MAX_EXPERIENCE, delta))));
+        try {
+            playerRepository.addExperience(bounded);
+        } catch (RuntimeException e) {
+            // не записанные начисления возвращаются в буфер и будут записаны при следующей попытке
+            deltas.forEach(this::addPending);
+            throw e;
+        }
+        deltas.keySet().forEach(playerCache::evict);
+        // UPDATE выполнен в обход EntityManager: новые опыт и уровень хранилище по столбцам перечитывает из БД
+        columnStore.refresh(deltas.keySet());
+        queryCache.invalidate();
+        flushes.increment();
+        flushedPlayers.add(deltas.size());
+    }
+
+    private void addPending(Long id, long delta) {
+        // get без блокировки; computeIfAbsent только для первого начисления игроку
+        LongAdder cell = pending.get(id);
+        if (cell == null) {
+            cell = pending.computeIfAbsent(id, key -> new LongAdder());
+        }
+        cell.add(delta);
+        if (pending.get(id) != cell) {
+            // ячейку уже забрали на запись: то, что в ней осталось, переносим в новую
+            long late = drain(cell);
+            if (late != 0) {
+                addPending(id, late);
+            }
+        }
+    }
+
+    // забирает сумму из ячейки, вычитая прочитанное из нее же: сумма ячейки и забранного не меняется,
+    // даже если ячейку одновременно забирают два потока или в нее в это время пишут (sumThenReset в Java 8 так не умеет)
+    private static long drain(LongAdder cell) {
+        long drained = 0;
+        for (long sum = cell.sum(); sum != 0; sum = cell.sum()) {
+            cell.add(-sum);
+            drained += sum;
+        }
+        return drained;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("could not write buffered experience", e);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.repository.PlayerIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * собирает статистику о том, какие комбинации фильтров и сортировок приходят в сервис,
+ * и какой индекс из PlayerIndex может их обслужить (по правилу самого левого префикса)
+ * по этой статистике настраиваются индексы: комбинации без индекса пишутся в лог при первом появлении
+ */
+@Component
+public class IndexAdvisor {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexAdvisor.class);
+
+    private final ConcurrentMap<String, Usage> usages = new ConcurrentHashMap<>();
+
+    /**
+     * учесть запрос с фильтрами filter и сортировкой sort (null - без сортировки, например count)
+     */
+    public void record(PlayerFilter filter, PlayerSort sort) {
+        Set<String> equalities = new LinkedHashSet<>();
+        Set<String> ranges = new LinkedHashSet<>();
+        Set<String> substrings = new LinkedHashSet<>();
+        collect(filter, equalities, ranges, substrings);
+
+        String shape = shape(equalities, ranges, substrings, sort);
+        Usage usage = usages.get(shape);
+        if (usage == null) {
+            Usage created = advise(shape, equalities, ranges, substrings, sort);
+            usage = usages.putIfAbsent(shape, created);
+            if (usage == null) {
+                usage = created;
+                if (usage.getIndex() == null) {
+                    log.warn("no index serves player query {}", shape);
+                } else {
+                    log.info("player query {} served by {} (sorted by index: {})", shape, usage.getIndex(), usage.isSortedByIndex());
+                }
+            }
+        }
+        usage.count.increment();
+    }
+
+    /**
+     * отчет по всем встреченным комбинациям, самые частые первыми
+     */
+    public List<Map<String, Object>> report() {
+        List<Usage> sorted = new ArrayList<>(usages.values());
+        sorted.sort(Comparator.comparingLong(Usage::getCount).reversed());
+
+        List<Map<String, Object>> report = new ArrayList<>(sorted.size());
+        for (Usage usage : sorted) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("query", usage.getShape());
+            row.put("count", usage.getCount());
+            row.put("index", usage.getIndex());
+            row.put("indexColumnsUsed", usage.getColumnsUsed());
+            row.put("sortedByIndex", usage.isSortedByIndex());
+            report.add(row);
+        }
+        return report;
+    }
+
+    public void reset() {
+        usages.clear();
+    }
+
+    private static void collect(PlayerFilter filter, Set<String> equalities, Set<String> ranges, Set<String> substrings) {
+        if (filter.getName() != null) substrings.add("name");
+        if (filter.getTitle() != null) substrings.add("title");
+        if (filter.getRace() != null) equalities.add("race");
+        if (filter.getProfession() != null) equalities.add("profession");
+        if (filter.getBanned() != null) equalities.add("banned");
+        if (filter.getAfter() != null || filter.getBefore() != null) ranges.add("birthday");
+        if (filter.getMinExperience() != null || filter.getMaxExperience() != null) ranges.add("experience");
+        if (filter.getMinLevel() != null || filter.getMaxLevel() != null) ranges.add("level");
+    }
+
+    private static String shape(Set<String> equalities, Set<String> ranges, Set<String> substrings, PlayerSort sort) {
+        StringBuilder sb = new StringBuilder()
+                .append("equal=").append(equalities)
+                .append(" range=").append(ranges)
+                .append(" like=").append(substrings);
+        if (sort != null) {
+            sb.append(" order=");
+            for (PlayerSort.Key key : sort.getKeys()) {
+                sb.append(key == sort.getKeys().get(0) ? "" : ",").append(key.getField().getFieldName())
+                        .append(key.isDescending() ? " desc" : "");
+            }
+        }
+        return sb.toString();
+    }
+
+    // выбираем индекс, у которого фильтрами покрыт самый длинный левый префикс:
+    // столбцы с равенством продолжают префикс, столбец с диапазоном его завершает
+    private static Usage advise(String shape, Set<String> equalities, Set<String> ranges, Set<String> substrings,
+                                PlayerSort sort) {
+        PlayerIndex best = null;
+        int bestColumns = 0;
+        boolean bestSorted = false;
+
+        for (PlayerIndex index : PlayerIndex.values()) {
+            List<String> columns = index.getColumns();
+            int position = 0;
+            while (position < columns.size() && equalities.contains(columns.get(position))) {
+                position++;
+            }
+            int used = position;
+            if (position < columns.size() && ranges.contains(columns.get(position))) {
+                used++;
+            }
+            boolean sorted = isSortedFrom(columns, position, sort);
+            if (used > bestColumns || (used == bestColumns && sorted && !bestSorted)) {
+                best = index;
+                bestColumns = used;
+                bestSorted = sorted;
+            }
+        }
+        if (best == null && sort == null && equalities.isEmpty() && ranges.isEmpty() && substrings.isEmpty()) {
+            // без условий на индексированные столбцы (например, count без фильтров) читается вся таблица
+            best = PlayerIndex.PRIMARY;
+        }
+        if (best == null && sort != null) {
+            // фильтра по индексированным столбцам нет, но индекс может отдать строки сразу в нужном порядке
+            for (PlayerIndex index : PlayerIndex.values()) {
+                if (isSortedFrom(index.getColumns(), 0, sort)) {
+                    best = index;
+                    bestSorted = true;
+                    break;
+                }
+            }
+        }
+        return new Usage(shape, best == null ? null : best.getIndexName(), bestColumns, bestSorted);
+    }
+
+    // отдает ли индекс строки в порядке sort, если читать его с позиции position (перед ней - столбцы с равенством)
+    // поля sort должны идти в индексе подряд с этой позиции, а id - сразу после последнего столбца индекса,
+    // где он хранится неявно; все поля в одну сторону, тогда индекс читается вперед или назад
+    private static boolean isSortedFrom(List<String> columns, int position, PlayerSort sort) {
+        if (sort == null || !sort.isUniform()) {
+            return false;
+        }
+        for (PlayerSort.Key key : sort.getKeys()) {
+            if (key.getField() == PlayerOrder.ID) {
+                return position == columns.size() || columns.get(position).equals(key.getField().getFieldName());
+            }
+            if (position >= columns.size() || !columns.get(position).equals(key.getField().getFieldName())) {
+                return false;
+            }
+            position++;
+        }
+        return true;
+    }
+
+    private static final class Usage {
+        private final String shape;
+        private final String index;
+        private final int columnsUsed;
+        private final boolean sortedByIndex;
+        private final LongAdder count = new LongAdder();
+
+        private Usage(String shape, String index, int columnsUsed, boolean sortedByIndex) {
+            this.shape = shape;
+            this.index = index;
+            this.columnsUsed = columnsUsed;
+            this.sortedByIndex = sortedByIndex;
+        }
+
+        String getShape() {
+            return shape;
+        }
+
+        String getIndex() {
+            return index;
+        }
+
+        int getColumnsUsed() {
+            return columnsUsed;
+        }
+
+        boolean isSortedByIndex() {
+            return sortedByIndex;
+        }
+
+        long getCount() {
+            return count.sum();
+        }
+    }
+}
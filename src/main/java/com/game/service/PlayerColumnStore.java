@@ -0,0 +1,278 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.models.Player;
+import com.game.models.PlayerPage;
+import com.game.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * все игроки в памяти по столбцам (PlayerColumns) для развертываний, где чтений намного больше, чем изменений
+ * включается player.columnar.enabled; тогда списки, страницы и количество игроков по фильтрам
+ * считаются перебором примитивных массивов без запросов в БД и без сущностей Hibernate
+ * хранилище заполняется из БД при старте и обновляется сервисом при создании, изменении и удалении игроков,
+ * поэтому, как и PlayerSearchIndex, видит только изменения, сделанные через это приложение
+ * поиск по name и title и сортировка по name сравнивают строки как БД: посимвольно, как H2, или без регистра
+ * и диакритики, как collation utf8_general_ci (player.columnar.ignore-case, по умолчанию - в профиле prod с MySQL)
+ * запросы, которые без регистра точно сравнить нельзя (строки с символами, которые не сворачиваются),
+ * find и count не обслуживают (возвращают null), и их выполняет БД
+ * от player.columnar.parallel-threshold игроков фильтр проверяется параллельно в собственном пуле потоков
+ * (player.columnar.parallelism), а не в общем ForkJoinPool, чтобы большие запросы не занимали чужие потоки
+ */
+@Component
+public class PlayerColumnStore implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerColumnStore.class);
+
+    private final PlayerRepository playerRepository;
+    private final boolean enabled;
+    private final boolean ignoreCase;
+    private final int loadFetchSize;
+    private final int parallelThreshold;
+    // null - параллельный перебор выключен
+    private final ForkJoinPool filterPool;
+
+    private final LongAdder sequentialScans = new LongAdder();
+    private final LongAdder parallelScans = new LongAdder();
+    private final LongAdder declined = new LongAdder();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean loaded = new AtomicBoolean();
+    // пока хранилище ни разу не построено, запросы обслуживает БД
+    private volatile boolean ready;
+
+    private PlayerColumns columns;
+    // изменения, пришедшие во время перестроения; применяются к новому хранилищу перед заменой
+    private List<Consumer<PlayerColumns>> pending;
+
+    @Autowired
+    public PlayerColumnStore(PlayerRepository playerRepository,
+                             @Value("${player.columnar.enabled:false}") boolean enabled,
+                             @Value("${player.columnar.fetch-size:1000}") int loadFetchSize,
+                             @Value("${player.columnar.parallelism:0}") int parallelism,
+                             @Value("${player.columnar.parallel-threshold:200000}") int parallelThreshold,
+                             Environment environment) {
+        this.playerRepository = playerRepository;
+        this.enabled = enabled;
+        // MySQL профиля prod сравнивает строки по utf8_general_ci, H2 профиля dev - посимвольно
+        this.ignoreCase = environment.getProperty("player.columnar.ignore-case", Boolean.class,
+                environment.acceptsProfiles(Profiles.of("prod")));
+        this.columns = new PlayerColumns(ignoreCase);
+        this.loadFetchSize = loadFetchSize;
+        this.parallelThreshold = parallelThreshold;
+        // 0 - половина ядер: остальные остаются потокам запросов
+        if (parallelism == 0) {
+            parallelism = Runtime.getRuntime().availableProcessors() / 2;
+        }
+        if (enabled && parallelism > 1) {
+            filterPool = new ForkJoinPool(parallelism, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("player-filter-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        } else {
+            filterPool = null;
+        }
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void load() {
+        if (enabled && loaded.compareAndSet(false, true)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * можно ли обслуживать запросы из памяти
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * заново заполнить хранилище из БД
+     */
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        PlayerColumns newColumns = new PlayerColumns(ignoreCase);
+        playerRepository.forEach((root, query, cb) -> null, Sort.by(PlayerOrder.ID.getFieldName()), loadFetchSize,
+                newColumns::put);
+
+        lock.writeLock().lock();
+        try {
+            columns = newColumns;
+            pending.forEach(change -> change.accept(columns));
+            pending = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("player column store built: {} players, {} dictionary strings", newColumns.size(),
+                newColumns.dictionarySize());
+    }
+
+    public void put(Player player) {
+        if (enabled) {
+            apply(columns -> columns.put(player));
+        }
+    }
+
+    public void remove(Long id) {
+        if (enabled) {
+            apply(columns -> columns.remove(id));
+        }
+    }
+
+    /**
+     * перечитать игроков из БД (после изменений запросами в обход EntityManager)
+     */
+    public void refresh(Collection<Long> ids) {
+        if (enabled && !ids.isEmpty()) {
+            List<Player> players = playerRepository.findAllById(ids);
+            apply(columns -> players.forEach(columns::put));
+        }
+    }
+
+    /**
+     * игроки, подходящие под фильтр, в порядке sort (при равенстве - по id), начиная с offset, не больше limit
+     * null - строки фильтра или сортировки нельзя сравнить так же, как БД, и запрос должна выполнить БД
+     */
+    public List<Player> find(PlayerFilter filter, PlayerSort sort, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            if (!exact(filter, sort)) {
+                return null;
+            }
+            return page(match(filter), sort, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public PlayerPage findPageWithTotal(PlayerFilter filter, PlayerSort sort, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            if (!exact(filter, sort)) {
+                return null;
+            }
+            int[] rows = match(filter);
+            return new PlayerPage(page(rows, sort, offset, limit), rows.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Long count(PlayerFilter filter) {
+        lock.readLock().lock();
+        try {
+            if (!exact(filter, null)) {
+                return null;
+            }
+            return (long) match(filter).length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("enabled", enabled);
+            stats.put("ready", ready);
+            stats.put("ignoreCase", ignoreCase);
+            stats.put("players", columns.size());
+            stats.put("dictionaryStrings", columns.dictionarySize());
+            stats.put("parallelism", filterPool == null ? 1 : filterPool.getParallelism());
+            stats.put("parallelThreshold", parallelThreshold);
+            stats.put("sequentialScans", sequentialScans.sum());
+            stats.put("parallelScans", parallelScans.sum());
+            stats.put("declined", declined.sum());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        if (filterPool != null) {
+            filterPool.shutdown();
+        }
+    }
+
+    // вызывается под блокировкой чтения
+    private boolean exact(PlayerFilter filter, PlayerSort sort) {
+        if (columns.exact(filter, sort)) {
+            return true;
+        }
+        declined.increment();
+        return false;
+    }
+
+    // вызывается под блокировкой чтения
+    private int[] match(PlayerFilter filter) {
+        if (filterPool != null && columns.size() >= parallelThreshold) {
+            parallelScans.increment();
+            return columns.match(filter, filterPool, parallelThreshold);
+        }
+        sequentialScans.increment();
+        return columns.match(filter);
+    }
+
+    // упорядочиваются только строки до конца страницы, а игроки создаются только для строк страницы
+    private List<Player> page(int[] rows, PlayerSort sort, long offset, int limit) {
+        int from = (int) Math.min(offset, rows.length);
+        int to = (int) Math.min((long) from + limit, rows.length);
+        int[] top = columns.top(rows, sort == null ? PlayerSort.DEFAULT : sort, to);
+        List<Player> players = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            players.add(columns.player(top[i]));
+        }
+        return players;
+    }
+
+    private void apply(Consumer<PlayerColumns> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(columns);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
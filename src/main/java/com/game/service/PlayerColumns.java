@@ -0,0 +1,583 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.models.Player;
+import com.game.repository.PlayerSpecifications;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * игроки по столбцам в примитивных массивах: строка i - один игрок, строки упорядочены по id
+ * имена и титулы хранятся кодами словаря, раса и профессия - номерами значений enum,
+ * дата регистрации - миллисекундами полуночи этой даты (в БД столбец DATE), признак бана - битами
+ * пустые поля хранятся особыми значениями (NULL_*) и, как и в SQL, не подходят ни под какой фильтр
+ * строки сравниваются посимвольно (как в H2) или, при ignoreCase, как в collation utf8_general_ci (MySQL):
+ * по свернутым TrigramIndex.fold значениям; значения и подстроки, которые не сворачиваются, так сравнить нельзя,
+ * и такие запросы хранилище не обслуживает (exact)
+ * удаленные игроки помечаются в deleted и выбрасываются при следующем сжатии
+ * не потокобезопасен: доступ защищает PlayerColumnStore
+ */
+class PlayerColumns {
+
+    static final byte NULL_ENUM = -1;
+    static final int NULL_INT = Integer.MIN_VALUE;
+    static final long NULL_DATE = Long.MIN_VALUE;
+    static final int NULL_CODE = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // оценка доли строк, подходящих под одну границу диапазона (статистики по значениям не ведется)
+    private static final double BOUND_SELECTIVITY = 0.5;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] names = new int[INITIAL_CAPACITY];
+    private int[] titles = new int[INITIAL_CAPACITY];
+    private byte[] races = new byte[INITIAL_CAPACITY];
+    private byte[] professions = new byte[INITIAL_CAPACITY];
+    private long[] birthdays = new long[INITIAL_CAPACITY];
+    private int[] experiences = new int[INITIAL_CAPACITY];
+    private int[] levels = new int[INITIAL_CAPACITY];
+    private int[] untilNextLevels = new int[INITIAL_CAPACITY];
+    private final BitSet banned = new BitSet();
+    private final BitSet bannedNull = new BitSet();
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private int size;
+
+    // сколько живых строк с каждым значением расы и профессии и забаненных (для оценки избирательности фильтра)
+    // удаленные строки сохраняют значения до сжатия, поэтому считать по самим столбцам нельзя
+    private final int[] raceCounts = new int[Race.values().length];
+    private final int[] professionCounts = new int[Profession.values().length];
+    private int bannedCount;
+
+    private final Dictionary nameDictionary;
+    private final Dictionary titleDictionary;
+
+    PlayerColumns() {
+        this(false);
+    }
+
+    PlayerColumns(boolean ignoreCase) {
+        nameDictionary = new Dictionary(ignoreCase);
+        titleDictionary = new Dictionary(ignoreCase);
+    }
+
+    int size() {
+        return size - deletedCount;
+    }
+
+    int dictionarySize() {
+        return nameDictionary.values.size() + titleDictionary.values.size();
+    }
+
+    /**
+     * добавить игрока или заменить строку игрока с тем же id
+     */
+    void put(Player player) {
+        long id = player.getId();
+        int row = size == 0 || ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+        if (row < 0) {
+            row = insertRow(-(row + 1));
+            ids[row] = id;
+        } else if (deleted.get(row)) {
+            deleted.clear(row);
+            deletedCount--;
+        } else {
+            uncount(row);
+        }
+        names[row] = nameDictionary.encode(player.getName());
+        titles[row] = titleDictionary.encode(player.getTitle());
+        races[row] = player.getRace() == null ? NULL_ENUM : (byte) player.getRace().ordinal();
+        professions[row] = player.getProfession() == null ? NULL_ENUM : (byte) player.getProfession().ordinal();
+        birthdays[row] = player.getBirthday() == null ? NULL_DATE : startOfDay(player.getBirthday());
+        experiences[row] = player.getExperience() == null ? NULL_INT : player.getExperience();
+        levels[row] = player.getLevel() == null ? NULL_INT : player.getLevel();
+        untilNextLevels[row] = player.getUntilNextLevel() == null ? NULL_INT : player.getUntilNextLevel();
+        banned.set(row, Boolean.TRUE.equals(player.getBanned()));
+        bannedNull.set(row, player.getBanned() == null);
+        count(row);
+    }
+
+    // как и при записи в столбец DATE, время суток отбрасывается: фильтры after/before и ответы совпадают с БД
+    private static long startOfDay(Date birthday) {
+        ZoneId zone = ZoneId.systemDefault();
+        return Instant.ofEpochMilli(birthday.getTime()).atZone(zone).toLocalDate().atStartOfDay(zone)
+                .toInstant().toEpochMilli();
+    }
+
+    void remove(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row >= 0 && !deleted.get(row)) {
+            deleted.set(row);
+            deletedCount++;
+            uncount(row);
+        }
+        // удаленные строки только помечаются; сжимаем, когда их набирается половина
+        if (deletedCount > size / 2 && size > INITIAL_CAPACITY) {
+            compact();
+        }
+    }
+
+    /**
+     * совпадут ли ответ match и порядок top с ответом БД; если нет, запрос должна выполнить БД
+     */
+    boolean exact(PlayerFilter filter, PlayerSort sort) {
+        if (filter.getName() != null && !nameDictionary.comparable(filter.getName())
+                || filter.getTitle() != null && !titleDictionary.comparable(filter.getTitle())) {
+            return false;
+        }
+        boolean byName = sort != null && sort.getKeys().stream().anyMatch(key -> key.getField() == PlayerOrder.NAME);
+        return !byName || nameDictionary.comparable(null);
+    }
+
+    /**
+     * номера строк игроков, подходящих под фильтр, по возрастанию id
+     */
+    int[] match(PlayerFilter filter) {
+        return plan(filter).execute(size, deleted);
+    }
+
+    /**
+     * то же, что match(filter), но от threshold строк перебор делится между потоками pool
+     */
+    int[] match(PlayerFilter filter, ForkJoinPool pool, int threshold) {
+        return plan(filter).execute(size, deleted, pool, threshold);
+    }
+
+    /**
+     * план фильтрации: только заданные условия фильтра с границами, вычисленными один раз,
+     * и оценкой доли подходящих строк по счетчикам значений и словарям
+     */
+    PlayerFilterPlan plan(PlayerFilter filter) {
+        PlayerFilterPlan plan = new PlayerFilterPlan();
+        double live = Math.max(1, size());
+        if (filter.getName() != null) {
+            BitSet codes = nameDictionary.containing(filter.getName());
+            plan.add(new PlayerFilterPlan.CodeIn("name", nameDictionary.share(codes), names, codes));
+        }
+        if (filter.getTitle() != null) {
+            BitSet codes = titleDictionary.containing(filter.getTitle());
+            plan.add(new PlayerFilterPlan.CodeIn("title", titleDictionary.share(codes), titles, codes));
+        }
+        if (filter.getRace() != null) {
+            int race = filter.getRace().ordinal();
+            plan.add(new PlayerFilterPlan.ByteEquals("race", raceCounts[race] / live, races, (byte) race));
+        }
+        if (filter.getProfession() != null) {
+            int profession = filter.getProfession().ordinal();
+            plan.add(new PlayerFilterPlan.ByteEquals("profession", professionCounts[profession] / live,
+                    professions, (byte) profession));
+        }
+        if (filter.getAfter() != null || filter.getBefore() != null) {
+            // пустая дата (NULL_DATE) меньше любой нижней границы, поэтому не подходит
+            long after = filter.getAfter() == null ? NULL_DATE + 1
+                    : PlayerSpecifications.firstDateAfter(filter.getAfter()).getTime();
+            long before = filter.getBefore() == null ? Long.MAX_VALUE
+                    : PlayerSpecifications.lastDateBefore(filter.getBefore()).getTime();
+            plan.add(new PlayerFilterPlan.LongRange("birthday",
+                    rangeSelectivity(filter.getAfter(), filter.getBefore()), birthdays, after, before));
+        }
+        if (filter.getBanned() != null) {
+            double bannedShare = Math.min(1, bannedCount / live);
+            plan.add(new PlayerFilterPlan.BitEquals("banned", filter.getBanned() ? bannedShare : 1 - bannedShare,
+                    banned, bannedNull, filter.getBanned()));
+        }
+        if (filter.getMinExperience() != null || filter.getMaxExperience() != null) {
+            plan.add(new PlayerFilterPlan.IntRange("experience",
+                    rangeSelectivity(filter.getMinExperience(), filter.getMaxExperience()), experiences,
+                    filter.getMinExperience() == null ? NULL_INT + 1 : filter.getMinExperience(),
+                    filter.getMaxExperience() == null ? Integer.MAX_VALUE : filter.getMaxExperience()));
+        }
+        if (filter.getMinLevel() != null || filter.getMaxLevel() != null) {
+            plan.add(new PlayerFilterPlan.IntRange("level",
+                    rangeSelectivity(filter.getMinLevel(), filter.getMaxLevel()), levels,
+                    filter.getMinLevel() == null ? NULL_INT + 1 : filter.getMinLevel(),
+                    filter.getMaxLevel() == null ? Integer.MAX_VALUE : filter.getMaxLevel()));
+        }
+        return plan;
+    }
+
+    private static double rangeSelectivity(Object min, Object max) {
+        return (min == null ? 1 : BOUND_SELECTIVITY) * (max == null ? 1 : BOUND_SELECTIVITY);
+    }
+
+    /**
+     * упорядочить строки по sort (при равенстве всех полей - по id)
+     * для одного поля ключ сортировки и номер строки (порядок строк - порядок id) упаковываются в long,
+     * поэтому сортируется массив примитивов без сравнений через объекты; по убыванию ключ инвертируется
+     */
+    int[] sort(int[] rows, PlayerSort sort) {
+        return top(rows, sort, rows.length);
+    }
+
+    /**
+     * первые limit строк в порядке sort(rows, sort); остальные строки не упорядочиваются:
+     * наименьшие ключи отбираются кучей из limit элементов, O(n log limit) вместо O(n log n)
+     */
+    int[] top(int[] rows, PlayerSort sort, int limit) {
+        if (limit <= 0) {
+            return new int[0];
+        }
+        PlayerSort.Key first = sort.getKeys().get(0);
+        if (first.getField() == PlayerOrder.ID) {
+            // id не повторяется: остальные поля не нужны, а строки уже упорядочены по id
+            return byId(rows, first.isDescending(), limit);
+        }
+        if (sort.getKeys().size() > 1) {
+            return RowSelection.smallest(rows, limit, comparator(sort));
+        }
+        PlayerOrder order = first.getField();
+        boolean descending = first.isDescending();
+        int[] nameRanks = order == PlayerOrder.NAME ? nameDictionary.ranks() : null;
+        long[] keys;
+        if (limit >= rows.length / 2) {
+            // страница занимает заметную часть результата: сортировка всех ключей дешевле кучи
+            keys = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                keys[i] = key(rows[i], order, nameRanks, descending);
+            }
+            Arrays.sort(keys);
+        } else {
+            keys = smallest(rows, order, nameRanks, descending, limit);
+        }
+        int[] sorted = new int[Math.min(limit, rows.length)];
+        for (int i = 0; i < sorted.length; i++) {
+            // ~ возвращает ключ по убыванию к исходному виду; номер строки - младшие 32 бита
+            sorted[i] = (int) (descending ? ~keys[i] : keys[i]);
+        }
+        return sorted;
+    }
+
+    private static int[] byId(int[] rows, boolean descending, int limit) {
+        int length = Math.min(limit, rows.length);
+        if (!descending) {
+            return length == rows.length ? rows : Arrays.copyOf(rows, length);
+        }
+        int[] sorted = new int[length];
+        for (int i = 0; i < length; i++) {
+            sorted[i] = rows[rows.length - 1 - i];
+        }
+        return sorted;
+    }
+
+    // цепочка сравнений строк по полям sort, затем по номеру строки (то есть по id)
+    private RowSelection.RowComparator comparator(PlayerSort sort) {
+        RowSelection.RowComparator comparator = null;
+        for (PlayerSort.Key key : sort.getKeys()) {
+            RowSelection.RowComparator next = comparator(key.getField());
+            next = key.isDescending() ? next.reversed() : next;
+            comparator = comparator == null ? next : comparator.then(next);
+        }
+        RowSelection.RowComparator byRow = Integer::compare;
+        return comparator.then(sort.isIdDescending() ? byRow.reversed() : byRow);
+    }
+
+    private RowSelection.RowComparator comparator(PlayerOrder field) {
+        switch (field) {
+            case ID:
+                return Integer::compare;
+            case NAME:
+                int[] nameRanks = nameDictionary.ranks();
+                return (a, b) -> Integer.compare(names[a] == NULL_CODE ? -1 : nameRanks[names[a]],
+                        names[b] == NULL_CODE ? -1 : nameRanks[names[b]]);
+            case EXPERIENCE:
+                return (a, b) -> Integer.compare(experiences[a], experiences[b]);
+            case LEVEL:
+                return (a, b) -> Integer.compare(levels[a], levels[b]);
+            case BIRTHDAY:
+                return (a, b) -> Long.compare(birthdays[a], birthdays[b]);
+            default:
+                throw new IllegalArgumentException(field.name());
+        }
+    }
+
+    // limit наименьших ключей по возрастанию; куча с наибольшим отобранным ключом в корне
+    private long[] smallest(int[] rows, PlayerOrder order, int[] nameRanks, boolean descending, int limit) {
+        long[] heap = new long[limit];
+        int heapSize = 0;
+        for (int row : rows) {
+            long key = key(row, order, nameRanks, descending);
+            if (heapSize < limit) {
+                int position = heapSize++;
+                while (position > 0 && heap[(position - 1) >>> 1] < key) {
+                    heap[position] = heap[(position - 1) >>> 1];
+                    position = (position - 1) >>> 1;
+                }
+                heap[position] = key;
+            } else if (key < heap[0]) {
+                siftDown(heap, key, limit);
+            }
+        }
+        Arrays.sort(heap, 0, heapSize);
+        return heap;
+    }
+
+    private static void siftDown(long[] heap, long key, int size) {
+        int position = 0;
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && heap[child] < heap[child + 1]) {
+                child++;
+            }
+            if (key >= heap[child]) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = key;
+    }
+
+    // ключ сортировки в старших 32 битах, номер строки - в младших;
+    // по убыванию все биты инвертируются, и возрастающий порядок ~key - убывающий по полю, затем по id
+    private long key(int row, PlayerOrder order, int[] nameRanks, boolean descending) {
+        int key;
+        switch (order) {
+            case NAME:
+                key = names[row] == NULL_CODE ? Integer.MIN_VALUE : nameRanks[names[row]];
+                break;
+            case EXPERIENCE:
+                key = experiences[row];
+                break;
+            case LEVEL:
+                key = levels[row];
+                break;
+            case BIRTHDAY:
+                // даты без времени, поэтому достаточно минут
+                key = birthdays[row] == NULL_DATE ? Integer.MIN_VALUE
+                        : (int) Math.floorDiv(birthdays[row], 60000L);
+                break;
+            default:
+                throw new IllegalArgumentException(order.name());
+        }
+        long packed = (long) key << 32 | row;
+        return descending ? ~packed : packed;
+    }
+
+    Player player(int row) {
+        Player player = new Player();
+        player.setId(ids[row]);
+        player.setName(nameDictionary.decode(names[row]));
+        player.setTitle(titleDictionary.decode(titles[row]));
+        player.setRace(races[row] == NULL_ENUM ? null : Race.values()[races[row]]);
+        player.setProfession(professions[row] == NULL_ENUM ? null : Profession.values()[professions[row]]);
+        player.setBirthday(birthdays[row] == NULL_DATE ? null : new Date(birthdays[row]));
+        player.setBanned(bannedNull.get(row) ? null : banned.get(row));
+        player.setExperience(experiences[row] == NULL_INT ? null : experiences[row]);
+        player.setLevel(levels[row] == NULL_INT ? null : levels[row]);
+        player.setUntilNextLevel(untilNextLevels[row] == NULL_INT ? null : untilNextLevels[row]);
+        return player;
+    }
+
+    private void count(int row) {
+        if (races[row] != NULL_ENUM) {
+            raceCounts[races[row]]++;
+        }
+        if (professions[row] != NULL_ENUM) {
+            professionCounts[professions[row]]++;
+        }
+        if (banned.get(row)) {
+            bannedCount++;
+        }
+    }
+
+    private void uncount(int row) {
+        if (races[row] != NULL_ENUM) {
+            raceCounts[races[row]]--;
+        }
+        if (professions[row] != NULL_ENUM) {
+            professionCounts[professions[row]]--;
+        }
+        if (banned.get(row)) {
+            bannedCount--;
+        }
+    }
+
+    private int insertRow(int row) {
+        if (size == ids.length) {
+            int capacity = size + (size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            races = Arrays.copyOf(races, capacity);
+            professions = Arrays.copyOf(professions, capacity);
+            birthdays = Arrays.copyOf(birthdays, capacity);
+            experiences = Arrays.copyOf(experiences, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            untilNextLevels = Arrays.copyOf(untilNextLevels, capacity);
+        }
+        if (row < size) {
+            // игрок с меньшим id пришел позже (одновременные создания): сдвигаем хвост
+            shift(row, row + 1, size - row);
+            // сдвиг копирует биты, но не очищает освободившуюся строку: иначе новый игрок унаследует пометку удаления
+            deleted.clear(row);
+            banned.clear(row);
+            bannedNull.clear(row);
+        }
+        size++;
+        return row;
+    }
+
+    private void compact() {
+        int target = 0;
+        for (int row = 0; row < size; row++) {
+            if (!deleted.get(row)) {
+                if (target != row) {
+                    shift(row, target, 1);
+                }
+                target++;
+            }
+        }
+        size = target;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private void shift(int from, int to, int length) {
+        System.arraycopy(ids, from, ids, to, length);
+        System.arraycopy(names, from, names, to, length);
+        System.arraycopy(titles, from, titles, to, length);
+        System.arraycopy(races, from, races, to, length);
+        System.arraycopy(professions, from, professions, to, length);
+        System.arraycopy(birthdays, from, birthdays, to, length);
+        System.arraycopy(experiences, from, experiences, to, length);
+        System.arraycopy(levels, from, levels, to, length);
+        System.arraycopy(untilNextLevels, from, untilNextLevels, to, length);
+        shift(banned, from, to, length);
+        shift(bannedNull, from, to, length);
+        shift(deleted, from, to, length);
+    }
+
+    private static void shift(BitSet bits, int from, int to, int length) {
+        BitSet moved = bits.get(from, from + length);
+        bits.clear(to, to + length);
+        for (int bit = moved.nextSetBit(0); bit >= 0; bit = moved.nextSetBit(bit + 1)) {
+            bits.set(to + bit);
+        }
+    }
+
+    /**
+     * словарь строк: каждая различная строка хранится один раз, в строках таблицы - ее код
+     * коды не переиспользуются, словарь только растет (до следующего построения хранилища)
+     */
+    private static class Dictionary {
+
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final boolean ignoreCase;
+        // при ignoreCase - свернутые значения по кодам (null - значение не сворачивается) и число несвернутых
+        private final List<String> folded = new ArrayList<>();
+        private int unfolded;
+        // место каждого кода в отсортированном словаре; null - словарь изменился и места нужно пересчитать
+        // вычисляется читателями под общей блокировкой чтения, поэтому volatile
+        private volatile int[] ranks;
+
+        Dictionary(boolean ignoreCase) {
+            this.ignoreCase = ignoreCase;
+        }
+
+        int encode(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+                if (ignoreCase) {
+                    String foldedValue = TrigramIndex.fold(value);
+                    folded.add(foldedValue);
+                    if (foldedValue == null) {
+                        unfolded++;
+                    }
+                }
+                ranks = null;
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return code == NULL_CODE ? null : values.get(code);
+        }
+
+        /**
+         * можно ли сравнивать строки словаря между собой и с part (null - только между собой) так же, как БД
+         */
+        boolean comparable(String part) {
+            return !ignoreCase || unfolded == 0 && (part == null || TrigramIndex.fold(part) != null);
+        }
+
+        /**
+         * коды строк, содержащих part (LIKE '%part%'); проверяется каждая различная строка, а не каждый игрок
+         */
+        BitSet containing(String part) {
+            List<String> strings = ignoreCase ? folded : values;
+            String needle = ignoreCase ? TrigramIndex.fold(part) : part;
+            BitSet result = new BitSet(values.size());
+            for (int code = 0; code < values.size(); code++) {
+                if (strings.get(code).contains(needle)) {
+                    result.set(code);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * доля строк словаря среди codes (оценка доли игроков, у которых значение из codes)
+         */
+        double share(BitSet codes) {
+            return values.isEmpty() ? 0 : (double) codes.cardinality() / values.size();
+        }
+
+        int[] ranks() {
+            int[] current = ranks;
+            if (current == null) {
+                Integer[] order = new Integer[values.size()];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = i;
+                }
+                Comparator<Integer> comparator = ignoreCase
+                        ? (a, b) -> collate(folded.get(a), folded.get(b))
+                        : (a, b) -> values.get(a).compareTo(values.get(b));
+                Arrays.sort(order, comparator);
+                // строки, равные по сравнению, получают одно место: между ними порядок решает id
+                current = new int[order.length];
+                int rank = 0;
+                for (int i = 0; i < order.length; i++) {
+                    if (i > 0 && comparator.compare(order[i - 1], order[i]) != 0) {
+                        rank++;
+                    }
+                    current[order[i]] = rank;
+                }
+                ranks = current;
+            }
+            return current;
+        }
+
+        // как utf8_general_ci для свернутых строк: вес символа - заглавная буква, короткая строка дополняется пробелами
+        private static int collate(String a, String b) {
+            for (int i = 0; i < Math.max(a.length(), b.length()); i++) {
+                char x = i < a.length() ? Character.toUpperCase(a.charAt(i)) : ' ';
+                char y = i < b.length() ? Character.toUpperCase(b.charAt(i)) : ' ';
+                if (x != y) {
+                    return Character.compare(x, y);
+                }
+            }
+            return 0;
+        }
+    }
+}
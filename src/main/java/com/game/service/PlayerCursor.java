@@ -0,0 +1,134 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.exceptions.BadRequestException;
+import com.game.models.Player;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * позиция в списке игроков для постраничного обхода без OFFSET (keyset pagination)
+ * хранит значение поля сортировки и id последнего игрока страницы; следующая страница
+ * начинается с условия WHERE (key, id) > (?, ?), поэтому стоимость запроса не растет с номером страницы
+ * клиенту передается в виде непрозрачной строки (base64)
+ */
+public final class PlayerCursor {
+
+    private static final String SEPARATOR = "|";
+    private static final String NULL_KEY = "";
+
+    private final PlayerOrder order;
+    // значение поля сортировки в строковом виде, null если у игрока поле не заполнено
+    private final String key;
+    private final long id;
+
+    private PlayerCursor(PlayerOrder order, String key, long id) {
+        this.order = order;
+        this.key = key;
+        this.id = id;
+    }
+
+    /**
+     * позиция сразу после указанного игрока
+     */
+    public static PlayerCursor after(Player player, PlayerOrder order) {
+        return new PlayerCursor(order, keyOf(player, order), player.getId());
+    }
+
+    public static PlayerCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = value.indexOf(SEPARATOR);
+            int last = value.lastIndexOf(SEPARATOR);
+            if (first < 0 || first == last) {
+                throw new BadRequestException("invalid cursor");
+            }
+            PlayerOrder order = PlayerOrder.valueOf(value.substring(0, first));
+            String key = value.substring(first + 1, last);
+            long id = Long.parseLong(value.substring(last + 1));
+            PlayerCursor cursor = new PlayerCursor(order, key.equals(NULL_KEY) ? null : key, id);
+            // проверяем, что значение ключа разбирается
+            if (cursor.key != null) {
+                cursor.typedKey();
+            }
+            return cursor;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String value = order.name() + SEPARATOR + (key == null ? NULL_KEY : key) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public PlayerOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * условие "игрок расположен после курсора" при сортировке по (order, id)
+     * значения null при сортировке по возрастанию идут первыми (MySQL, H2)
+     */
+    public Specification<Player> toSpecification() {
+        return (root, query, cb) -> {
+            Path<Long> idPath = root.get(PlayerOrder.ID.getFieldName());
+            if (order == PlayerOrder.ID) {
+                return cb.greaterThan(idPath, id);
+            }
+            Path<Comparable<Object>> keyPath = root.get(order.getFieldName());
+            if (key == null) {
+                return cb.or(
+                        cb.and(cb.isNull(keyPath), cb.greaterThan(idPath, id)),
+                        cb.isNotNull(keyPath));
+            }
+            Comparable<Object> value = typedKey();
+            return cb.or(
+                    cb.greaterThan(keyPath, value),
+                    cb.and(cb.equal(keyPath, value), cb.greaterThan(idPath, id)));
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Comparable<Object> typedKey() {
+        switch (order) {
+            case NAME:
+                return (Comparable<Object>) (Comparable<?>) key;
+            case EXPERIENCE:
+            case LEVEL:
+                return (Comparable<Object>) (Comparable<?>) Integer.valueOf(key);
+            case BIRTHDAY:
+                return (Comparable<Object>) (Comparable<?>) java.sql.Date.valueOf(LocalDate.parse(key));
+            default:
+                return (Comparable<Object>) (Comparable<?>) Long.valueOf(key);
+        }
+    }
+
+    private static String keyOf(Player player, PlayerOrder order) {
+        Object value;
+        switch (order) {
+            case NAME:
+                value = player.getName();
+                break;
+            case EXPERIENCE:
+                value = player.getExperience();
+                break;
+            case LEVEL:
+                value = player.getLevel();
+                break;
+            case BIRTHDAY:
+                Date birthday = player.getBirthday();
+                value = birthday == null ? null : new java.sql.Date(birthday.getTime()).toLocalDate();
+                break;
+            default:
+                value = player.getId();
+        }
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package com.game.service;
+
+import com.game.models.Player;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * кэш второго уровня Hibernate для игроков (регион Player.CACHE_REGION)
+ * изменения через EntityManager (save, delete) обновляют кэш сами;
+ * после запросов UPDATE/DELETE в обход EntityManager измененных игроков нужно вытеснить через evict
+ */
+@Component
+public class PlayerEntityCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public PlayerEntityCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void evict(Long id) {
+        entityManagerFactory.getCache().evict(Player.class, id);
+    }
+
+    public void evictAll() {
+        entityManagerFactory.getCache().evict(Player.class);
+    }
+
+    /**
+     * попадания и промахи по статистике Hibernate; при db.statistics.enabled=false статистика
+     * по регионам не собирается, и возвращается только enabled=false
+     */
+    public Map<String, Object> stats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("region", Player.CACHE_REGION);
+        stats.put("enabled", statistics.isStatisticsEnabled());
+        if (!statistics.isStatisticsEnabled()) {
+            return stats;
+        }
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(Player.CACHE_REGION);
+        long hits = region.getHitCount();
+        long misses = region.getMissCount();
+
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("puts", region.getPutCount());
+        stats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        // сколько запросов ушло в БД (для сравнения с количеством попаданий в кэш)
+        stats.put("entityLoads", statistics.getEntityLoadCount());
+        stats.put("statements", statistics.getPrepareStatementCount());
+        return stats;
+    }
+}
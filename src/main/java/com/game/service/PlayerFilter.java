@@ -0,0 +1,126 @@
+package com.game.service;
+
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.util.Objects;
+
+/**
+ * набор фильтров из запроса GET /rest/players (и /rest/players/count)
+ * все параметры необязательные: null означает, что фильтр не задан
+ */
+public final class PlayerFilter {
+
+    private final String name;
+    private final String title;
+    private final Race race;
+    private final Profession profession;
+    private final Long after;
+    private final Long before;
+    private final Boolean banned;
+    private final Integer minExperience;
+    private final Integer maxExperience;
+    private final Integer minLevel;
+    private final Integer maxLevel;
+
+    public PlayerFilter(String name, String title, Race race, Profession profession,
+                        Long after, Long before, Boolean banned, Integer minExperience,
+                        Integer maxExperience, Integer minLevel, Integer maxLevel) {
+        this.name = name;
+        this.title = title;
+        this.race = race;
+        this.profession = profession;
+        this.after = after;
+        this.before = before;
+        this.banned = banned;
+        this.minExperience = minExperience;
+        this.maxExperience = maxExperience;
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Race getRace() {
+        return race;
+    }
+
+    public Profession getProfession() {
+        return profession;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public Boolean getBanned() {
+        return banned;
+    }
+
+    public Integer getMinExperience() {
+        return minExperience;
+    }
+
+    public Integer getMaxExperience() {
+        return maxExperience;
+    }
+
+    public Integer getMinLevel() {
+        return minLevel;
+    }
+
+    public Integer getMaxLevel() {
+        return maxLevel;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PlayerFilter that = (PlayerFilter) o;
+        return Objects.equals(name, that.name) &&
+                Objects.equals(title, that.title) &&
+                race == that.race &&
+                profession == that.profession &&
+                Objects.equals(after, that.after) &&
+                Objects.equals(before, that.before) &&
+                Objects.equals(banned, that.banned) &&
+                Objects.equals(minExperience, that.minExperience) &&
+                Objects.equals(maxExperience, that.maxExperience) &&
+                Objects.equals(minLevel, that.minLevel) &&
+                Objects.equals(maxLevel, that.maxLevel);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, title, race, profession, after, before, banned,
+                minExperience, maxExperience, minLevel, maxLevel);
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerFilter{" +
+                "name='" + name + '\'' +
+                ", title='" + title + '\'' +
+                ", race=" + race +
+                ", profession=" + profession +
+                ", after=" + after +
+                ", before=" + before +
+                ", banned=" + banned +
+                ", minExperience=" + minExperience +
+                ", maxExperience=" + maxExperience +
+                ", minLevel=" + minLevel +
+                ", maxLevel=" + maxLevel +
+                '}';
+    }
+}
@@ -0,0 +1,300 @@
+package com.game.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * план фильтрации строк PlayerColumns, который строится один раз на запрос (PlayerColumns.plan)
+ * в плане только заданные условия фильтра, уже приведенные к сравнениям примитивов с готовыми границами,
+ * и упорядоченные по оценке доли подходящих строк: самое избирательное условие проверяется первым
+ * строки проверяются порциями по CHUNK_SIZE: каждое условие своим циклом оставляет в порции подходящие строки,
+ * следующие условия проверяют только оставшиеся; при переборе не создается ни одного объекта
+ * план только читает столбцы, поэтому отрезки строк можно проверять в нескольких потоках одновременно
+ */
+final class PlayerFilterPlan {
+
+    static final int CHUNK_SIZE = 4096;
+
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    private final List<Step> steps = new ArrayList<>();
+    // одно из условий заведомо не выполняется ни для какой строки (по самому фильтру, а не по оценке)
+    private boolean empty;
+
+    void add(Step step) {
+        if (step.never) {
+            empty = true;
+        }
+        steps.add(step);
+        steps.sort(Comparator.comparingDouble(s -> s.selectivity));
+    }
+
+    /**
+     * номера подходящих строк из 0..size-1 (кроме удаленных) по возрастанию
+     */
+    int[] execute(int size, BitSet deleted) {
+        return empty ? new int[0] : scan(0, size, deleted);
+    }
+
+    /**
+     * то же, что execute(size, deleted), но строки делятся на отрезки, которые проверяются в pool параллельно
+     * отрезки склеиваются в исходном порядке, поэтому результат тот же, что и при последовательном переборе
+     * пока строк меньше threshold, перебор последовательный в вызывающем потоке
+     */
+    int[] execute(int size, BitSet deleted, ForkJoinPool pool, int threshold) {
+        if (empty || pool == null || size < threshold) {
+            return execute(size, deleted);
+        }
+        // по несколько отрезков на поток, чтобы освободившиеся потоки забирали работу у занятых
+        int segments = pool.getParallelism() * SEGMENTS_PER_THREAD;
+        int segmentSize = (size + segments - 1) / segments;
+        List<Callable<int[]>> tasks = new ArrayList<>(segments);
+        for (int from = 0; from < size; from += segmentSize) {
+            int segmentFrom = from;
+            int segmentTo = Math.min(size, from + segmentSize);
+            tasks.add(() -> scan(segmentFrom, segmentTo, deleted));
+        }
+        List<int[]> parts = new ArrayList<>(tasks.size());
+        int count = 0;
+        for (Future<int[]> future : pool.invokeAll(tasks)) {
+            int[] part = join(future);
+            parts.add(part);
+            count += part.length;
+        }
+        int[] result = new int[count];
+        int offset = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+
+    private static int[] join(Future<int[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while filtering players", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("could not filter players", e.getCause());
+        }
+    }
+
+    // подходящие строки из from..to-1 (кроме удаленных) по возрастанию
+    private int[] scan(int from, int to, BitSet deleted) {
+        int length = to - from;
+        int[] result = new int[Math.min(length, 1024)];
+        int count = 0;
+        int[] chunk = new int[Math.min(length, CHUNK_SIZE)];
+        int row = deleted.nextClearBit(from);
+        while (row < to) {
+            int chunkSize = 0;
+            while (chunkSize < chunk.length && row < to) {
+                chunk[chunkSize++] = row;
+                row = deleted.nextClearBit(row + 1);
+            }
+            for (int i = 0; i < steps.size() && chunkSize > 0; i++) {
+                chunkSize = steps.get(i).narrow(chunk, chunkSize);
+            }
+            if (count + chunkSize > result.length) {
+                result = Arrays.copyOf(result, Math.max(result.length * 2, count + chunkSize));
+            }
+            System.arraycopy(chunk, 0, result, count, chunkSize);
+            count += chunkSize;
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    @Override
+    public String toString() {
+        if (empty) {
+            return "empty";
+        }
+        return steps.isEmpty() ? "all" : steps.stream().map(Step::toString).collect(Collectors.joining(" -> "));
+    }
+
+    /**
+     * одно условие плана; narrow оставляет в начале rows[0..count) подходящие строки в том же порядке
+     * и возвращает их количество
+     * у каждого вида условия свой цикл, поэтому проверка внутри цикла не вызывается виртуально
+     * selectivity - только оценка и влияет лишь на порядок проверки; пустым план делает never
+     */
+    abstract static class Step {
+
+        private final String name;
+        // оценка доли подходящих строк 0..1
+        final double selectivity;
+        // условие не выполняется ни для какого значения столбца (пустой диапазон, ни одной подходящей строки словаря)
+        final boolean never;
+
+        Step(String name, double selectivity) {
+            this(name, selectivity, false);
+        }
+
+        Step(String name, double selectivity, boolean never) {
+            this.name = name;
+            this.selectivity = never ? 0 : selectivity;
+            this.never = never;
+        }
+
+        abstract int narrow(int[] rows, int count);
+
+        @Override
+        public String toString() {
+            return String.format("%s(%.3f)", name, selectivity);
+        }
+    }
+
+    /**
+     * min <= values[row] <= max
+     */
+    static final class IntRange extends Step {
+
+        private final int[] values;
+        private final int min;
+        private final int max;
+
+        IntRange(String name, double selectivity, int[] values, int min, int max) {
+            super(name, selectivity, min > max);
+            this.values = values;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        int narrow(int[] rows, int count) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                int value = values[row];
+                if (value >= min && value <= max) {
+                    rows[kept++] = row;
+                }
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * min <= values[row] <= max
+     */
+    static final class LongRange extends Step {
+
+        private final long[] values;
+        private final long min;
+        private final long max;
+
+        LongRange(String name, double selectivity, long[] values, long min, long max) {
+            super(name, selectivity, min > max);
+            this.values = values;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        int narrow(int[] rows, int count) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                long value = values[row];
+                if (value >= min && value <= max) {
+                    rows[kept++] = row;
+                }
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * values[row] == expected
+     */
+    static final class ByteEquals extends Step {
+
+        private final byte[] values;
+        private final byte expected;
+
+        ByteEquals(String name, double selectivity, byte[] values, byte expected) {
+            super(name, selectivity);
+            this.values = values;
+            this.expected = expected;
+        }
+
+        @Override
+        int narrow(int[] rows, int count) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                if (values[row] == expected) {
+                    rows[kept++] = row;
+                }
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * бит строки в values равен expected, а в nulls не установлен
+     */
+    static final class BitEquals extends Step {
+
+        private final BitSet values;
+        private final BitSet nulls;
+        private final boolean expected;
+
+        BitEquals(String name, double selectivity, BitSet values, BitSet nulls, boolean expected) {
+            super(name, selectivity);
+            this.values = values;
+            this.nulls = nulls;
+            this.expected = expected;
+        }
+
+        @Override
+        int narrow(int[] rows, int count) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                if (values.get(row) == expected && !nulls.get(row)) {
+                    rows[kept++] = row;
+                }
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * код словаря в codes[row] входит в accepted (NULL_CODE не входит никогда)
+     */
+    static final class CodeIn extends Step {
+
+        private final int[] codes;
+        private final BitSet accepted;
+
+        CodeIn(String name, double selectivity, int[] codes, BitSet accepted) {
+            super(name, selectivity, accepted.isEmpty());
+            this.codes = codes;
+            this.accepted = accepted;
+        }
+
+        @Override
+        int narrow(int[] rows, int count) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                int code = codes[row];
+                if (code >= 0 && accepted.get(code)) {
+                    rows[kept++] = row;
+                }
+            }
+            return kept;
+        }
+    }
+}
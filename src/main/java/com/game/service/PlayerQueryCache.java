@@ -0,0 +1,134 @@
+package com.game.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * кэш результатов запросов списка и количества игроков
+ * ключ - вид запроса, фильтры и страница с сортировкой после подстановки значений по умолчанию,
+ * поэтому ?pageNumber=0&pageSize=3 и запрос без этих параметров попадают в одну запись
+ * размер кэша ограничен (вытесняются редко используемые записи), записи живут не дольше ttl
+ * любое изменение игроков увеличивает поколение кэша: записи, посчитанные в прошлых поколениях, не используются
+ */
+@Component
+public class PlayerQueryCache {
+
+    private final boolean enabled;
+    private final Cache<Key, Entry> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public PlayerQueryCache(@Value("${player.query-cache.enabled:true}") boolean enabled,
+                            @Value("${player.query-cache.maximum-size:1000}") long maximumSize,
+                            @Value("${player.query-cache.ttl-ms:5000}") long ttlMillis) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * результат запроса query с фильтрами filter и страницей pageable (null - без страниц) из кэша,
+     * или результат loader, который запоминается до следующего изменения игроков
+     * результат не должен изменяться после того, как попал в кэш
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String query, PlayerFilter filter, Pageable pageable, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(query, filter, pageable);
+        // поколение запоминается до чтения из БД: если игроков изменят во время запроса,
+        // результат сохранится с уже устаревшим поколением и использоваться не будет
+        long current = generation.get();
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.generation == current) {
+            hits.increment();
+            return (T) entry.value;
+        }
+        misses.increment();
+        T value = loader.get();
+        cache.put(key, new Entry(current, value));
+        return value;
+    }
+
+    /**
+     * игроки изменились: все запомненные результаты устарели
+     */
+    public void invalidate() {
+        if (enabled) {
+            generation.incrementAndGet();
+            cache.invalidateAll();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", cache.estimatedSize());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        // вытеснено по размеру или по ttl
+        stats.put("evictions", cache.stats().evictionCount());
+        stats.put("invalidations", generation.get());
+        return stats;
+    }
+
+    private static final class Key {
+        private final String query;
+        private final PlayerFilter filter;
+        private final Pageable pageable;
+
+        Key(String query, PlayerFilter filter, Pageable pageable) {
+            this.query = query;
+            this.filter = filter;
+            this.pageable = pageable;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return query.equals(key.query) &&
+                    filter.equals(key.filter) &&
+                    Objects.equals(pageable, key.pageable);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, filter, pageable);
+        }
+    }
+
+    private static final class Entry {
+        private final long generation;
+        private final Object value;
+
+        Entry(long generation, Object value) {
+            this.generation = generation;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.game.service;
+
+import com.game.models.Player;
+import com.game.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * триграммные индексы по полям name и title для поиска по частичному совпадению
+ * по фильтрам ?name= и ?title= индекс заранее отбирает id кандидатов, и запрос в БД проверяет
+ * LIKE '%x%' и остальные условия только у них, а не у всей таблицы
+ * индекс заполняется из БД при старте и обновляется сервисом при создании, изменении и удалении игроков,
+ * поэтому видит только изменения, сделанные через это приложение: индекс рассчитан на один экземпляр
+ * приложения. Кандидаты окончательные, поэтому игрок, измененный в обход (другим экземпляром, скриптом),
+ * не находится по новому имени до перестроения: раз в player.search.trigram.rebuild-interval-ms
+ * или через POST /rest/admin/search-index/rebuild
+ */
+@Component
+public class PlayerSearchIndex implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerSearchIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 10000;
+
+    private final PlayerRepository playerRepository;
+    private final boolean enabled;
+    private final int maxCandidates;
+    // null - периодическое перестроение выключено
+    private final ScheduledExecutorService rebuilder;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean loaded = new AtomicBoolean();
+    // пока индекс ни разу не построен, сужать по нему поиск нельзя
+    private volatile boolean ready;
+
+    private TrigramIndex names = new TrigramIndex();
+    private TrigramIndex titles = new TrigramIndex();
+    // изменения, пришедшие во время перестроения индекса; применяются к новому индексу перед заменой
+    private List<Consumer<PlayerSearchIndex>> pending;
+
+    @Autowired
+    public PlayerSearchIndex(PlayerRepository playerRepository,
+                             @Value("${player.search.trigram.enabled:true}") boolean enabled,
+                             @Value("${player.search.trigram.max-candidates:1000}") int maxCandidates,
+                             @Value("${player.search.trigram.rebuild-interval-ms:600000}") long rebuildIntervalMillis) {
+        this.playerRepository = playerRepository;
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+        if (enabled && rebuildIntervalMillis > 0) {
+            rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "search-index-rebuilder");
+                thread.setDaemon(true);
+                return thread;
+            });
+            rebuilder.scheduleWithFixedDelay(this::rebuildQuietly, rebuildIntervalMillis, rebuildIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            rebuilder = null;
+        }
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void load() {
+        if (enabled && loaded.compareAndSet(false, true)) {
+            rebuild();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * заново построить индекс по данным из БД
+     */
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        TrigramIndex newNames = new TrigramIndex();
+        TrigramIndex newTitles = new TrigramIndex();
+        long lastId = 0;
+        List<Object[]> rows;
+        do {
+            rows = playerRepository.findSearchFields(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (Object[] row : rows) {
+                lastId = (Long) row[0];
+                newNames.put(lastId, (String) row[1]);
+                newTitles.put(lastId, (String) row[2]);
+            }
+        } while (rows.size() == LOAD_BATCH_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            names = newNames;
+            titles = newTitles;
+            pending.forEach(change -> change.accept(this));
+            pending = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("player search index built: {} names, {} trigrams", newNames.valueCount(),
+                newNames.gramCount() + newTitles.gramCount());
+    }
+
+    public void index(Player player) {
+        if (enabled) {
+            apply(index -> {
+                index.names.put(player.getId(), player.getName());
+                index.titles.put(player.getId(), player.getTitle());
+            });
+        }
+    }
+
+    public void remove(Long id) {
+        if (enabled) {
+            apply(index -> {
+                index.names.remove(id);
+                index.titles.remove(id);
+            });
+        }
+    }
+
+    /**
+     * отсортированные id игроков, у которых могут совпасть фильтры name и title
+     * null - индекс не может сузить поиск (индекс выключен, подстроки короче 3 символов
+     * или кандидатов больше player.search.trigram.max-candidates)
+     */
+    public long[] candidates(PlayerFilter filter) {
+        if (!enabled || !ready || (filter.getName() == null && filter.getTitle() == null)) {
+            return null;
+        }
+        long[] byName;
+        long[] byTitle;
+        lock.readLock().lock();
+        try {
+            byName = filter.getName() == null ? null : names.candidates(filter.getName());
+            byTitle = filter.getTitle() == null ? null : titles.candidates(filter.getTitle());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long[] result = byName == null ? byTitle : byTitle == null ? byName : intersect(byName, byTitle);
+        if (result != null && result.length > maxCandidates) {
+            return null;
+        }
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("enabled", enabled);
+            stats.put("players", names.valueCount());
+            stats.put("nameTrigrams", names.gramCount());
+            stats.put("titleTrigrams", titles.gramCount());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("could not rebuild player search index", e);
+        }
+    }
+
+    private void apply(Consumer<PlayerSearchIndex> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(this);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, size = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
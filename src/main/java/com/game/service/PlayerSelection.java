@@ -0,0 +1,87 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.models.Player;
+import com.game.service.RowSelection.RowComparator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * выбор одной страницы упорядоченного списка игроков без сортировки всего списка
+ * нужны только первые k = (pageNumber + 1) * pageSize игроков, поэтому они отбираются кучей из k номеров:
+ * O(n log k) сравнений вместо O(n log n), и только k элементов упорядочиваются в конце
+ * значения каждого поля сортировки один раз выносятся в массив примитивов (для NAME - строк), и из них
+ * собирается цепочка сравнений по полям PlayerSort, затем по id; пустые значения меньше любых других
+ */
+final class PlayerSelection {
+
+    private PlayerSelection() {
+    }
+
+    static List<Player> page(List<Player> players, PlayerSort sort, int pageNumber, int pageSize) {
+        int size = players.size();
+        long from = (long) pageNumber * pageSize;
+        if (from >= size) {
+            return new ArrayList<>();
+        }
+        int k = (int) Math.min(size, from + pageSize);
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        int[] selected = RowSelection.smallest(indexes, k, comparator(players, sort == null ? PlayerSort.DEFAULT : sort));
+        List<Player> page = new ArrayList<>(k - (int) from);
+        for (int i = (int) from; i < k; i++) {
+            page.add(players.get(selected[i]));
+        }
+        return Collections.unmodifiableList(page);
+    }
+
+    private static RowComparator comparator(List<Player> players, PlayerSort sort) {
+        RowComparator comparator = null;
+        for (PlayerSort.Key key : sort.getKeys()) {
+            RowComparator next = comparator(players, key.getField());
+            next = key.isDescending() ? next.reversed() : next;
+            comparator = comparator == null ? next : comparator.then(next);
+        }
+        if (sort.getKeys().get(sort.getKeys().size() - 1).getField() != PlayerOrder.ID) {
+            RowComparator byId = comparator(players, PlayerOrder.ID);
+            comparator = comparator.then(sort.isIdDescending() ? byId.reversed() : byId);
+        }
+        return comparator;
+    }
+
+    private static RowComparator comparator(List<Player> players, PlayerOrder field) {
+        int size = players.size();
+        if (field == PlayerOrder.NAME) {
+            String[] names = new String[size];
+            for (int i = 0; i < size; i++) {
+                names[i] = players.get(i).getName();
+            }
+            return (a, b) -> names[a] == null ? (names[b] == null ? 0 : -1)
+                    : names[b] == null ? 1 : names[a].compareTo(names[b]);
+        }
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = key(players.get(i), field);
+        }
+        return (a, b) -> Long.compare(keys[a], keys[b]);
+    }
+
+    private static long key(Player player, PlayerOrder field) {
+        switch (field) {
+            case ID:
+                return player.getId() == null ? Long.MIN_VALUE : player.getId();
+            case EXPERIENCE:
+                return player.getExperience() == null ? Long.MIN_VALUE : player.getExperience();
+            case LEVEL:
+                return player.getLevel() == null ? Long.MIN_VALUE : player.getLevel();
+            case BIRTHDAY:
+                return player.getBirthday() == null ? Long.MIN_VALUE : player.getBirthday().getTime();
+            default:
+                throw new IllegalArgumentException(field.name());
+        }
+    }
+}
@@ -4,27 +4,43 @@ import com.game.controller.PlayerOrder;
 import com.game.entity.Profession;
 import com.game.entity.Race;
 import com.game.models.Player;
+import com.game.models.PlayerBatchResult;
+import com.game.models.PlayerPage;
+import com.game.models.PlayerSlice;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 
 public interface PlayerService {
 
     Player updatePlayer(Long id, Player player);
 
+    Player updatePlayer(Long id, Player player, Long expectedVersion);
+
+    Player addExperience(Long id, Integer delta);
+
     void deleteById(Long id);
 
     Player findById(Long id);
 
     Player createPlayer(Player player);
 
+    PlayerBatchResult createPlayers(List<Player> players);
+
     List<Player> getPlayerList(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel);
 
-    List<Player> sortPlayers(List<Player> playerList, PlayerOrder order);
+    List<Player> getPlayerPage(PlayerFilter filter, PlayerSort sort, Integer pageNumber, Integer pageSize);
+
+    long countPlayers(PlayerFilter filter);
+
+    PlayerPage getPlayerPageWithTotal(PlayerFilter filter, PlayerSort sort, Integer pageNumber, Integer pageSize);
+
+    PlayerSlice scrollPlayers(PlayerFilter filter, PlayerOrder order, String cursor, Integer pageSize);
 
-    List<Player> sortPage(List<Player> sortedPlayers, Integer pageNumber, Integer pageSize);
+    void exportPlayers(PlayerFilter filter, PlayerSort sort, Consumer<Player> action);
 }
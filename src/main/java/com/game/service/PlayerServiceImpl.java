@@ -5,22 +5,82 @@ import com.game.controller.PlayerOrder;
 import com.game.entity.Profession;
 import com.game.entity.Race;
 import com.game.exceptions.BadRequestException;
+import com.game.exceptions.ConflictException;
 import com.game.exceptions.NotFoundException;
+import com.game.exceptions.PreconditionFailedException;
 import com.game.models.Player;
+import com.game.models.PlayerBatchResult;
+import com.game.models.PlayerPage;
+import com.game.models.PlayerSlice;
 import com.game.repository.PlayerRepository;
+import com.game.repository.PlayerSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 @Service
 public class PlayerServiceImpl implements PlayerService{
 
+    // Опыт персонажа. Диапазон значений 0..10,000,000
+    static final int MAX_EXPERIENCE = 10000000;
+
     public final PlayerRepository playerRepository;
 
+    private final IndexAdvisor indexAdvisor;
+
+    private final PlayerSearchIndex searchIndex;
+
+    private final PlayerColumnStore columnStore;
+
+    private final PlayerQueryCache queryCache;
+
+    private final PlayerEntityCache playerCache;
+
+    private final ExperienceBuffer experienceBuffer;
+
+    private final UpdateConflictMetrics conflictMetrics;
+
+    // наибольшее количество игроков в одном запросе POST /rest/players/batch
+    private final int maxBatchSize;
+
+    // сколько строк за раз читается из БД при выгрузке игроков
+    private final int exportFetchSize;
+
+    // сколько раз пробовать записать изменение игрока при конфликте версий и пауза перед первым повтором
+    private final int maxUpdateAttempts;
+    private final long updateRetryBackoffMillis;
+
     @Autowired
-    public PlayerServiceImpl(PlayerRepository playerRepository) {
+    public PlayerServiceImpl(PlayerRepository playerRepository, IndexAdvisor indexAdvisor,
+                             PlayerSearchIndex searchIndex, PlayerColumnStore columnStore,
+                             PlayerQueryCache queryCache,
+                             PlayerEntityCache playerCache, ExperienceBuffer experienceBuffer,
+                             UpdateConflictMetrics conflictMetrics,
+                             @Value("${player.batch.max-size:100000}") int maxBatchSize,
+                             @Value("${player.export.fetch-size:1000}") int exportFetchSize,
+                             @Value("${player.update.max-attempts:5}") int maxUpdateAttempts,
+                             @Value("${player.update.retry-backoff-ms:5}") long updateRetryBackoffMillis) {
         this.playerRepository = playerRepository;
+        this.indexAdvisor = indexAdvisor;
+        this.searchIndex = searchIndex;
+        this.columnStore = columnStore;
+        this.queryCache = queryCache;
+        this.playerCache = playerCache;
+        this.experienceBuffer = experienceBuffer;
+        this.conflictMetrics = conflictMetrics;
+        this.maxBatchSize = maxBatchSize;
+        this.exportFetchSize = exportFetchSize;
+        this.maxUpdateAttempts = maxUpdateAttempts;
+        this.updateRetryBackoffMillis = updateRetryBackoffMillis;
     }
 
     /**
@@ -31,54 +91,151 @@ public class PlayerServiceImpl implements PlayerService{
                                       Long after, Long before, Boolean banned, Integer minExperience,
                                       Integer maxExperience, Integer minLevel, Integer maxLevel) {
 
-        List<Player> playerList = new ArrayList<>();
-
-        playerRepository.findAll().forEach(player -> {
-            // Поиск по полям name и title происходить по частичному соответствию.
-            // Например, если в БД есть игрок с именем «Камираж», а параметр name задан как «ир»
-            // - такой игрок должен отображаться в результатах (Камираж)
-            if (name != null && !player.getName().contains(name))
-                return;
-            if (title != null && !player.getTitle().contains(title))
-                return;
-            if (race != null && player.getRace() != race) {
-                return;
-            }
-            if (profession != null && player.getProfession() != profession) {
-                return;
-            }
-            if (after != null) {
-                Date afterDate = new Date(after);
-                if (!player.getBirthday().after(afterDate)) {
-                    return;
-                }
-            }
-            if (before != null) {
-                Date beforeDate = new Date(before);
-                if (!player.getBirthday().before(beforeDate)) {
-                    return;
-                }
-            }
-            if (banned != null && player.getBanned().booleanValue() != banned.booleanValue()) {
-                return;
-            }
-            if (minExperience != null && player.getExperience().compareTo(minExperience) < 0) {
-                return;
-            }
-            if (maxExperience != null && player.getExperience().compareTo(maxExperience) > 0) {
-                return;
-            }
-            if (minLevel != null && player.getLevel().compareTo(minLevel) < 0) {
-                return;
-            }
-            if (maxLevel != null && player.getLevel().compareTo(maxLevel) > 0) {
-                return;
-            }
+        PlayerFilter filter = new PlayerFilter(name, title, race, profession, after, before, banned,
+                minExperience, maxExperience, minLevel, maxLevel);
+
+        List<Player> stored = columnStore.isReady()
+                ? columnStore.find(filter, PlayerSort.DEFAULT, 0, Integer.MAX_VALUE) : null;
+        if (stored != null) {
+            return Collections.unmodifiableList(stored);
+        }
+        return queryCache.get("list", filter, null, () -> {
+            indexAdvisor.record(filter, PlayerSort.DEFAULT);
+            // фильтрация выполняется в БД: из таблицы читаются только подходящие игроки
+            return Collections.unmodifiableList(
+                    playerRepository.findAll(toSpecification(filter), Sort.by(PlayerOrder.ID.getFieldName())));
+        });
+    }
+
+    /**
+     * получать одну страницу отфильтрованного и отсортированного списка игроков
+     * сортировка и LIMIT/OFFSET выполняются в БД, поэтому читается не больше pageSize строк
+     * повторные одинаковые запросы до изменения игроков обслуживаются из PlayerQueryCache,
+     * а при включенном player.columnar.enabled все запросы - из PlayerColumnStore
+     * sort может состоять из нескольких полей с направлениями; в БД он становится ORDER BY, и если есть индекс
+     * с этими полями (IndexAdvisor), строки читаются из индекса уже упорядоченными
+     */
+    @Override
+    public List<Player> getPlayerPage(PlayerFilter filter, PlayerSort sort, Integer pageNumber, Integer pageSize) {
+        Pageable pageable = toPageable(sort, pageNumber, pageSize);
+        List<Player> stored = columnStore.isReady()
+                ? columnStore.find(filter, sort, pageable.getOffset(), pageable.getPageSize()) : null;
+        if (stored != null) {
+            return Collections.unmodifiableList(stored);
+        }
+        return queryCache.get("page", filter, pageable, () -> {
+            indexAdvisor.record(filter, sort == null ? PlayerSort.DEFAULT : sort);
+            return Collections.unmodifiableList(playerRepository.findPage(toSpecification(filter), pageable));
+        });
+    }
+
+    /**
+     * получать количество игроков, которые соответствуют фильтрам
+     * выполняется один запрос SELECT COUNT(*) с теми же условиями, что и у списка, без загрузки самих игроков
+     */
+    @Override
+    public long countPlayers(PlayerFilter filter) {
+        Long stored = columnStore.isReady() ? columnStore.count(filter) : null;
+        if (stored != null) {
+            return stored;
+        }
+        return queryCache.get("count", filter, null, () -> {
+            indexAdvisor.record(filter, null);
+            return playerRepository.count(toSpecification(filter));
+        });
+    }
 
-            playerList.add(player);
+    /**
+     * получать страницу игроков вместе с общим количеством подходящих под фильтры
+     * (то, что UI раньше получал двумя запросами: /rest/players и /rest/players/count)
+     * фильтр вычисляется в БД один раз: количество считается оконной функцией в том же запросе
+     */
+    @Override
+    public PlayerPage getPlayerPageWithTotal(PlayerFilter filter, PlayerSort sort, Integer pageNumber, Integer pageSize) {
+        Pageable pageable = toPageable(sort, pageNumber, pageSize);
+        PlayerPage stored = columnStore.isReady()
+                ? columnStore.findPageWithTotal(filter, sort, pageable.getOffset(), pageable.getPageSize()) : null;
+        if (stored != null) {
+            return new PlayerPage(Collections.unmodifiableList(stored.getPlayers()), stored.getTotal());
+        }
+        return queryCache.get("pageWithTotal", filter, pageable, () -> {
+            indexAdvisor.record(filter, sort == null ? PlayerSort.DEFAULT : sort);
+            PlayerPage page = playerRepository.findPageWithTotal(toSpecification(filter), pageable);
+            return new PlayerPage(Collections.unmodifiableList(page.getPlayers()), page.getTotal());
         });
+    }
+
+    /**
+     * обход отфильтрованного списка игроков по курсору
+     * вместо OFFSET следующая часть начинается условием (поле сортировки, id) > (значения последнего игрока),
+     * поэтому каждый запрос читает не больше pageSize строк независимо от того, как далеко продвинулся обход
+     */
+    @Override
+    public PlayerSlice scrollPlayers(PlayerFilter filter, PlayerOrder order, String cursor, Integer pageSize) {
+        if (order == null) {
+            order = PlayerOrder.ID;
+        }
+        indexAdvisor.record(filter, PlayerSort.of(order));
+        Specification<Player> specification = toSpecification(filter);
+        if (cursor != null && !cursor.isEmpty()) {
+            PlayerCursor position = PlayerCursor.decode(cursor);
+            // курсор действителен только для той сортировки, с которой он получен
+            if (position.getOrder() != order) {
+                throw new BadRequestException("cursor was issued for order " + position.getOrder());
+            }
+            specification = specification.and(position.toSpecification());
+        }
 
-        return playerList;
+        Pageable pageable = toPageable(PlayerSort.of(order), 0, pageSize);
+        List<Player> players = playerRepository.findPage(specification, pageable);
+
+        String next = null;
+        if (players.size() == pageable.getPageSize()) {
+            next = PlayerCursor.after(players.get(players.size() - 1), order).encode();
+        }
+        return new PlayerSlice(players, next);
+    }
+
+    /**
+     * передавать всех отфильтрованных и отсортированных игроков по одному в action
+     * список целиком не собирается: игроки читаются из БД курсором порциями по player.export.fetch-size
+     */
+    @Override
+    public void exportPlayers(PlayerFilter filter, PlayerSort sort, Consumer<Player> action) {
+        indexAdvisor.record(filter, sort == null ? PlayerSort.DEFAULT : sort);
+        playerRepository.forEach(toSpecification(filter), toSort(sort), exportFetchSize, action);
+    }
+
+    // условия фильтра для запроса в БД; если по name/title можно отобрать кандидатов
+    // триграммным индексом, LIKE проверяется только у них (id IN (...))
+    private Specification<Player> toSpecification(PlayerFilter filter) {
+        Specification<Player> specification = PlayerSpecifications.byFilter(filter);
+        long[] candidates = searchIndex.candidates(filter);
+        if (candidates != null) {
+            specification = specification.and(PlayerSpecifications.idIn(candidates));
+        }
+        return specification;
+    }
+
+    private Pageable toPageable(PlayerSort sort, Integer pageNumber, Integer pageSize) {
+        // Если параметр pageNumber не указан – нужно использовать значение 0
+        if (pageNumber == null) {
+            pageNumber = 0;
+        }
+        // Если параметр pageSize не указан – нужно использовать значение 3
+        if (pageSize == null) {
+            pageSize = 3;
+        }
+        if (pageNumber < 0 || pageSize <= 0) {
+            throw new BadRequestException();
+        }
+        return PageRequest.of(pageNumber, pageSize, toSort(sort));
+    }
+
+    // Если параметр order не указан – нужно использовать значение PlayerOrder.ID.
+    // При равенстве значений полей сортировки порядок определяет id (PlayerSort.toSort добавляет его последним)
+    private Sort toSort(PlayerSort sort) {
+        return (sort == null ? PlayerSort.DEFAULT : sort).toSort();
     }
 
     // проверяем, что длина значения параметра “name” и "title" не превышает размер 12 и 30 соответсвенно
@@ -105,7 +262,7 @@ public class PlayerServiceImpl implements PlayerService{
     // проверяем, что опыт не находится вне заданных пределов
     private boolean isValidExperience(Integer experience) {
         // Опыт персонажа. Диапазон значений 0..10,000,000
-        return experience >= 0 && experience <= 10000000;
+        return experience >= 0 && experience <= MAX_EXPERIENCE;
     }
 
     private boolean isValidDate(Date date) {
@@ -127,12 +284,12 @@ public class PlayerServiceImpl implements PlayerService{
     }
 
     // текущий уровень персонажа
-    private Integer calculateLevel(Player player) {
+    static Integer calculateLevel(Player player) {
         return ((int) ((Math.sqrt(2500 + 200 * player.getExperience())- 50) / 100));
     }
 
     // опыт необходимый для достижения следующего уровня
-    private Integer calculateUntilNextLevel(Player player) {
+    static Integer calculateUntilNextLevel(Player player) {
         return 50 * (player.getLevel() + 1) * (player.getLevel() + 2) - player.getExperience();
     }
 
@@ -142,25 +299,91 @@ public class PlayerServiceImpl implements PlayerService{
     // (пригодится для создания и редактирования нового игрока)
     @Override
     public Player createPlayer(Player player) {
+        String error = validateNewPlayer(player);
+        if (error != null) {
+            throw new BadRequestException(error);
+        }
+        calculateProgress(player);
+        Player savedPlayer = playerRepository.save(player);
+        searchIndex.index(savedPlayer);
+        columnStore.put(savedPlayer);
+        queryCache.invalidate();
+        return savedPlayer;
+    }
+
+    /**
+     * создавать сразу много игроков
+     * каждый игрок проверяется по тем же правилам, что и в createPlayer; ошибки возвращаются по каждому
+     * элементу отдельно, а все прошедшие проверку игроки вставляются пачками в одной транзакции
+     */
+    @Override
+    public PlayerBatchResult createPlayers(List<Player> players) {
+        if (players == null || players.size() > maxBatchSize) {
+            throw new BadRequestException("batch must contain at most " + maxBatchSize + " players");
+        }
+
+        List<PlayerBatchResult.Item> items = new ArrayList<>(players.size());
+        List<Player> accepted = new ArrayList<>(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            String error = player == null ? "player is null" : validateNewPlayer(player);
+            if (error != null) {
+                items.add(PlayerBatchResult.Item.rejected(i, error));
+                continue;
+            }
+            // id выдает БД, как и при создании по одному
+            player.setId(null);
+            calculateProgress(player);
+            accepted.add(player);
+            items.add(null);
+        }
+
+        if (!accepted.isEmpty()) {
+            playerRepository.insertAll(accepted);
+            queryCache.invalidate();
+        }
 
+        Iterator<Player> saved = accepted.iterator();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == null) {
+                Player player = saved.next();
+                searchIndex.index(player);
+                columnStore.put(player);
+                items.set(i, PlayerBatchResult.Item.created(i, player.getId()));
+            }
+        }
+        return new PlayerBatchResult(accepted.size(), players.size() - accepted.size(), items);
+    }
+
+    // проверка нового игрока: причина, по которой его нельзя создать, или null
+    private String validateNewPlayer(Player player) {
         // проверяем все ли параметры указаны
-        if (isValidParams(player)
-                // проверяем длину значений имени,
-                && isValidName(player.getName())
-                // титула
-                && isValidTitle(player.getTitle())
-                // проверяем, что опыт не находится вне заданных пределов
-                && isValidExperience(player.getExperience())
-                // проверяем, что дата регистрации не находятся вне заданных пределов
-                && isValidDate(player.getBirthday())) {
-
-            player.setLevel(calculateLevel(player));
-            player.setUntilNextLevel(calculateUntilNextLevel(player));
-            return playerRepository.save(player);
-
-        } else {
-            throw new BadRequestException();
+        if (!isValidParams(player)) {
+            return "no parameters specified";
         }
+        // проверяем длину значений имени,
+        if (player.getName() == null || !isValidName(player.getName())) {
+            return "invalid name";
+        }
+        // титула
+        if (player.getTitle() == null || !isValidTitle(player.getTitle())) {
+            return "invalid title";
+        }
+        // проверяем, что опыт не находится вне заданных пределов
+        if (player.getExperience() == null || !isValidExperience(player.getExperience())) {
+            return "invalid experience";
+        }
+        // проверяем, что дата регистрации не находятся вне заданных пределов
+        if (!isValidDate(player.getBirthday())) {
+            return "invalid birthday";
+        }
+        return null;
+    }
+
+    // уровень и опыт до следующего уровня вычисляются из опыта
+    private void calculateProgress(Player player) {
+        player.setLevel(calculateLevel(player));
+        player.setUntilNextLevel(calculateUntilNextLevel(player));
     }
 
     /**
@@ -168,146 +391,189 @@ public class PlayerServiceImpl implements PlayerService{
      */
     @Override
     public Player updatePlayer(Long id, Player player) {
+        return updatePlayer(id, player, null);
+    }
+
+    /**
+     * редактировать игрока, если его версия равна expectedVersion (заголовок If-Match); null - без условия
+     * без условия изменение, проигравшее одновременному изменению того же игрока, повторяется
+     * поверх новой версии не больше player.update.max-attempts раз с растущей паузой
+     */
+    @Override
+    public Player updatePlayer(Long id, Player player, Long expectedVersion) {
         // Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
         if (id <= 0) {
             throw new BadRequestException();
         }
 
-        // Если игрок не найден в БД, необходимо ответить ошибкой с кодом 404.
-        if (!playerRepository.existsById(id)) {
-            throw new NotFoundException("player not found");
-        }
-
-
         if (player.getBirthday() == null && player.getExperience() == null &&
                 player.getName() == null && player.getLevel()== null&&
                 player.getTitle() == null && player.getRace() == null && player.getProfession() == null &&
                 player.getBanned() == null && player.getUntilNextLevel()==null
-        ) return  playerRepository.findById(id).get();
-
-        Player changedPlayer = playerRepository.findById(id).get();//getOne(id);
-
-        // Обновлять нужно только те поля, которые не null
-        if (player.getBirthday() != null) {
-            if ( isValidDate(player.getBirthday()))
-                changedPlayer.setBirthday(player.getBirthday());
-            else  throw new BadRequestException();
+        ) {
+            Player current = findById(id);
+            checkVersion(current, expectedVersion);
+            return current;
         }
-        if (player.getExperience() != null)
-            if (isValidExperience(player.getExperience())) {
-                changedPlayer.setExperience(player.getExperience());
-            }else throw new BadRequestException();
 
-        if (player.getName() != null) {
-            changedPlayer.setName(player.getName());
-        }
-        if (player.getTitle() != null) {
-            changedPlayer.setTitle(player.getTitle());
-        }
-        if (player.getRace() != null) {
-            changedPlayer.setRace(player.getRace());
-        }
-        if (player.getProfession() != null) {
-            changedPlayer.setProfession(player.getProfession());
+        // начисления опыта из буфера отложенной записи должны попасть в БД раньше этого изменения
+        experienceBuffer.flush(id);
+
+        // изменение, проигравшее одновременному изменению того же игрока, повторяется поверх новой версии
+        Player savedPlayer;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                savedPlayer = applyUpdate(id, player, expectedVersion);
+                break;
+            } catch (OptimisticLockingFailureException e) {
+                conflictMetrics.conflict(id);
+                // с условием If-Match клиент сам решает, повторять ли изменение поверх новой версии
+                if (expectedVersion != null) {
+                    conflictMetrics.preconditionFailed();
+                    throw new PreconditionFailedException("player was changed concurrently");
+                }
+                if (attempt >= maxUpdateAttempts) {
+                    conflictMetrics.exhausted();
+                    throw new ConflictException("player was changed concurrently");
+                }
+                conflictMetrics.retry();
+                backOff(attempt);
+            }
         }
 
-         if (player.getBanned() != null){
-             changedPlayer.setBanned(player.getBanned());
-         }
+        searchIndex.index(savedPlayer);
+        columnStore.put(savedPlayer);
+        queryCache.invalidate();
+        return savedPlayer;
+    }
+
+    // поиск и изменение игрока в одной транзакции: игрок загружается один раз (или берется из кэша),
+    // а в UPDATE попадают только поля, значения которых изменились
+    private Player applyUpdate(Long id, Player player, Long expectedVersion) {
+        return playerRepository.update(id, changedPlayer -> {
+            checkVersion(changedPlayer, expectedVersion);
+            // Обновлять нужно только те поля, которые не null
+            if (player.getBirthday() != null) {
+                if (isValidDate(player.getBirthday()))
+                    changedPlayer.setBirthday(player.getBirthday());
+                else throw new BadRequestException();
+            }
+            if (player.getExperience() != null)
+                if (isValidExperience(player.getExperience())) {
+                    changedPlayer.setExperience(player.getExperience());
+                } else throw new BadRequestException();
+
+            if (player.getName() != null) {
+                changedPlayer.setName(player.getName());
+            }
+            if (player.getTitle() != null) {
+                changedPlayer.setTitle(player.getTitle());
+            }
+            if (player.getRace() != null) {
+                changedPlayer.setRace(player.getRace());
+            }
+            if (player.getProfession() != null) {
+                changedPlayer.setProfession(player.getProfession());
+            }
+            if (player.getBanned() != null) {
+                changedPlayer.setBanned(player.getBanned());
+            }
 
-        changedPlayer.setLevel(calculateLevel(changedPlayer));
-        changedPlayer.setUntilNextLevel(calculateUntilNextLevel(changedPlayer));
+            changedPlayer.setLevel(calculateLevel(changedPlayer));
+            changedPlayer.setUntilNextLevel(calculateUntilNextLevel(changedPlayer));
+        })
+                // Если игрок не найден в БД, необходимо ответить ошибкой с кодом 404.
+                .orElseThrow(() -> new NotFoundException("player not found"));
+    }
 
+    private void checkVersion(Player current, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            conflictMetrics.preconditionFailed();
+            throw new PreconditionFailedException("player version is " + current.getVersion());
+        }
+    }
 
-        return playerRepository.save(changedPlayer);
+    // пауза перед повтором: 1, 2, 4... базовых интервала со случайным разбросом, чтобы повторы не совпадали
+    private void backOff(int attempt) {
+        long delay = updateRetryBackoffMillis << Math.min(attempt - 1, 6);
+        try {
+            Thread.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("interrupted while retrying update");
+        }
     }
 
     /**
-     * удалять игрока
+     * начислять (или списывать при отрицательном delta) опыт игроку
+     * опыт ограничивается диапазоном 0..10,000,000, уровень и опыт до следующего уровня пересчитываются
+     * в том же UPDATE, поэтому одновременные начисления не перезаписывают друг друга
      */
     @Override
-    public void deleteById(Long id) {
+    public Player addExperience(Long id, Integer delta) {
         // Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
-        if (id <= 0) {
+        if (id <= 0 || delta == null) {
             throw new BadRequestException();
         }
-        // Если игрок не найден в БД, необходимо ответить ошибкой с кодом 404.
-        if (!playerRepository.existsById(id)) {
-            throw new NotFoundException("playerNotFound");
+        // больше, чем весь диапазон опыта, изменить нельзя; ограничение не дает переполниться сумме в БД
+        int boundedDelta = Math.max(-MAX_EXPERIENCE, Math.min(MAX_EXPERIENCE, delta));
+        if (experienceBuffer.isEnabled()) {
+            // отложенная запись: игрок должен существовать, а начисление попадет в БД при следующей записи буфера
+            Player player = playerRepository.findById(id).orElseThrow(() -> new NotFoundException("player not found"));
+            experienceBuffer.add(id, boundedDelta);
+            return withPendingExperience(player);
         }
-        playerRepository.deleteById(id);
+        Player savedPlayer = playerRepository.addExperience(id, boundedDelta)
+                // Если игрок не найден в БД, необходимо ответить ошибкой с кодом 404.
+                .orElseThrow(() -> new NotFoundException("player not found"));
+        playerCache.evict(id);
+        columnStore.put(savedPlayer);
+        queryCache.invalidate();
+        return savedPlayer;
     }
 
     /**
-     * получать игрока по id
+     * удалять игрока
      */
     @Override
-    public Player findById(Long id) {
+    public void deleteById(Long id) {
+        // Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
         if (id <= 0) {
             throw new BadRequestException();
         }
-
-        // Если игрок не найден в БД, необходимо ответить ошибкой с кодом 404.
-
-        if (!playerRepository.existsById(id)) {
+        // один запрос DELETE; если ни одна строка не удалена, игрок не найден в БД - ошибка с кодом 404.
+        if (playerRepository.deleteIfExists(id) == 0) {
             throw new NotFoundException("playerNotFound");
         }
-        // Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
-
-
-        return playerRepository.findById(id).get();
+        playerCache.evict(id);
+        experienceBuffer.discard(id);
+        searchIndex.remove(id);
+        columnStore.remove(id);
+        queryCache.invalidate();
     }
 
     /**
-     * сортировка списка в соответсвии с переданным параметром
+     * получать игрока по id
      */
-    // получать отфильтрованный список игроков в соответствии с переданными фильтрами
     @Override
-    public List<Player> sortPlayers(List<Player> list, PlayerOrder order) {
-        if (order != null) {
-            switch (order) {
-                case ID:
-                    //list.sort(Comparator.comparing(Player -> Player.getId()));
-                    list.sort(Comparator.comparing(Player::getId));
-                    break;
-                case NAME:
-                    list.sort(Comparator.comparing(Player::getName));
-                    break;
-                case EXPERIENCE:
-                    list.sort(Comparator.comparing(Player::getExperience));
-                    break;
-                case BIRTHDAY:
-                    list.sort(Comparator.comparing(Player::getBirthday));
-                    break;
-            }
+    public Player findById(Long id) {
+        // Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
+        if (id <= 0) {
+            throw new BadRequestException();
         }
-        return list;
+        // один поиск по первичному ключу; игрок, который уже есть в кэше второго уровня, читается без запроса в БД
+        // Если игрок не найден в БД, необходимо ответить ошибкой с кодом 404.
+        return withPendingExperience(playerRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("playerNotFound")));
     }
 
-    /**
-     * сортировка страницы в соответсвии с переданными параметрами
-     * pageNumber – параметр, который отвечает за номер отображаемой страницы при использовании пейджингаъ
-     * pageSize – параметр, который отвечает за количество результатов на одной странице при пейджинге
-     */
-    // получать количество игроков, которые соответствуют фильтрам
-    @Override
-    public List<Player> sortPage(List<Player> list, Integer pageNumber, Integer pageSize) {
-        // Если параметр pageNumber не указан – нужно использовать значение 0
-        if (pageNumber == null) {
-            pageNumber = 0;
-        }
-        // Если параметр pageSize не указан – нужно использовать значение 3
-        if (pageSize == null) {
-            pageSize = 3;
-        }
-        List<Player> result = new ArrayList<>();
-        for (int i = 0; i < list.size(); i++) {
-            if ((pageNumber ==0 && i>=0 && i < pageSize) ||
-                    ( i / pageSize == pageNumber && i % pageNumber >= 0 &&
-                            i % pageNumber < pageSize)){
-                result.add(list.get(i));
-            }
+    // добавить к опыту начисления, еще не записанные в БД буфером отложенной записи
+    private Player withPendingExperience(Player player) {
+        long pendingExperience = experienceBuffer.pendingDelta(player.getId());
+        if (pendingExperience != 0) {
+            player.setExperience((int) Math.max(0, Math.min(MAX_EXPERIENCE, player.getExperience() + pendingExperience)));
+            calculateProgress(player);
         }
-        return result;
+        return player;
     }
 }
@@ -0,0 +1,163 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * сортировка списка игроков по нескольким полям с направлением: параметр order=LEVEL:DESC,NAME:ASC
+ * без направления поле сортируется по возрастанию, поэтому прежние значения order=LEVEL работают как раньше
+ * при равенстве всех полей порядок определяет id в направлении последнего поля: для сортировки
+ * в одну сторону индекс по этим полям (в нем неявно хранится id) можно читать целиком вперед или назад
+ */
+public final class PlayerSort {
+
+    public static final PlayerSort DEFAULT = of(PlayerOrder.ID);
+
+    private final List<Key> keys;
+
+    private PlayerSort(List<Key> keys) {
+        this.keys = Collections.unmodifiableList(keys);
+    }
+
+    public static PlayerSort of(PlayerOrder order) {
+        return new PlayerSort(Collections.singletonList(new Key(order == null ? PlayerOrder.ID : order, false)));
+    }
+
+    /**
+     * разбор параметра order: поля через запятую, у каждого необязательное направление :ASC или :DESC
+     * Spring вызывает этот метод при привязке параметра запроса; неверное значение - ошибка 400
+     */
+    public static PlayerSort valueOf(String value) {
+        List<Key> keys = new ArrayList<>();
+        Set<PlayerOrder> seen = EnumSet.noneOf(PlayerOrder.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length > 2) {
+                throw new IllegalArgumentException("invalid order " + part);
+            }
+            PlayerOrder field = PlayerOrder.valueOf(pair[0].trim().toUpperCase());
+            boolean descending = pair.length == 2 && parseDescending(pair[1].trim());
+            if (!seen.add(field)) {
+                throw new IllegalArgumentException("order field repeated: " + field);
+            }
+            keys.add(new Key(field, descending));
+            // id не повторяется, дальше сравнивать нечего
+            if (field == PlayerOrder.ID) {
+                break;
+            }
+        }
+        return new PlayerSort(keys);
+    }
+
+    private static boolean parseDescending(String direction) {
+        if (direction.equalsIgnoreCase("DESC")) {
+            return true;
+        }
+        if (direction.equalsIgnoreCase("ASC")) {
+            return false;
+        }
+        throw new IllegalArgumentException("invalid order direction " + direction);
+    }
+
+    public List<Key> getKeys() {
+        return keys;
+    }
+
+    /**
+     * направление сравнения id при равенстве всех полей
+     */
+    public boolean isIdDescending() {
+        return keys.get(keys.size() - 1).isDescending();
+    }
+
+    /**
+     * все поля сортируются в одну сторону
+     */
+    public boolean isUniform() {
+        return keys.stream().allMatch(key -> key.isDescending() == keys.get(0).isDescending());
+    }
+
+    /**
+     * единственное поле по возрастанию (прежний параметр order), иначе null
+     */
+    public PlayerOrder asOrder() {
+        Key key = keys.get(0);
+        return keys.size() == 1 && !key.isDescending() ? key.getField() : null;
+    }
+
+    /**
+     * ORDER BY для запроса в БД: поля, затем id
+     */
+    public Sort toSort() {
+        List<Sort.Order> orders = new ArrayList<>(keys.size() + 1);
+        for (Key key : keys) {
+            orders.add(key.isDescending() ? Sort.Order.desc(key.getField().getFieldName())
+                    : Sort.Order.asc(key.getField().getFieldName()));
+        }
+        if (keys.get(keys.size() - 1).getField() != PlayerOrder.ID) {
+            String id = PlayerOrder.ID.getFieldName();
+            orders.add(isIdDescending() ? Sort.Order.desc(id) : Sort.Order.asc(id));
+        }
+        return Sort.by(orders);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof PlayerSort && keys.equals(((PlayerSort) o).keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return keys.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return keys.stream().map(Key::toString).collect(Collectors.joining(","));
+    }
+
+    public static final class Key {
+
+        private final PlayerOrder field;
+        private final boolean descending;
+
+        Key(PlayerOrder field, boolean descending) {
+            this.field = field;
+            this.descending = descending;
+        }
+
+        public PlayerOrder getField() {
+            return field;
+        }
+
+        public boolean isDescending() {
+            return descending;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return field == key.field && descending == key.descending;
+        }
+
+        @Override
+        public int hashCode() {
+            return field.hashCode() * 2 + (descending ? 1 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return field + (descending ? ":DESC" : ":ASC");
+        }
+    }
+}
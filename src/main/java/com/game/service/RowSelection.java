@@ -0,0 +1,79 @@
+package com.game.service;
+
+/**
+ * отбор k наименьших номеров строк по сравнению RowComparator кучей из k элементов, O(n log k)
+ * используется там, где порядок задан несколькими полями и не укладывается в один упакованный ключ
+ */
+final class RowSelection {
+
+    /**
+     * сравнение двух строк по номерам; цепочка сравнений по полям собирается один раз на запрос
+     */
+    interface RowComparator {
+
+        int compare(int a, int b);
+
+        default RowComparator then(RowComparator next) {
+            return (a, b) -> {
+                int compare = compare(a, b);
+                return compare != 0 ? compare : next.compare(a, b);
+            };
+        }
+
+        default RowComparator reversed() {
+            return (a, b) -> compare(b, a);
+        }
+    }
+
+    private RowSelection() {
+    }
+
+    /**
+     * первые k из rows в порядке comparator, по возрастанию; rows не изменяется
+     */
+    static int[] smallest(int[] rows, int k, RowComparator comparator) {
+        k = Math.min(k, rows.length);
+        // куча с наибольшей из отобранных строк в корне: новая строка нужна, только если она меньше корня
+        int[] heap = new int[k];
+        if (k == 0) {
+            return heap;
+        }
+        int heapSize = 0;
+        for (int row : rows) {
+            if (heapSize < k) {
+                int position = heapSize++;
+                while (position > 0 && comparator.compare(heap[(position - 1) >>> 1], row) < 0) {
+                    heap[position] = heap[(position - 1) >>> 1];
+                    position = (position - 1) >>> 1;
+                }
+                heap[position] = row;
+            } else if (comparator.compare(row, heap[0]) < 0) {
+                siftDown(heap, row, k, comparator);
+            }
+        }
+        // корень - наибольший: переносим его в конец и уменьшаем кучу, пока она не кончится
+        for (int end = k - 1; end > 0; end--) {
+            int top = heap[0];
+            siftDown(heap, heap[end], end, comparator);
+            heap[end] = top;
+        }
+        return heap;
+    }
+
+    private static void siftDown(int[] heap, int row, int size, RowComparator comparator) {
+        int position = 0;
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && comparator.compare(heap[child], heap[child + 1]) < 0) {
+                child++;
+            }
+            if (comparator.compare(row, heap[child]) >= 0) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = row;
+    }
+}
@@ -0,0 +1,211 @@
+package com.game.service;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * инвертированный индекс по триграммам (тройкам подряд идущих символов) одного строкового поля
+ * для каждой триграммы хранится отсортированный массив id, у которых она встречается в значении поля
+ * по подстроке длиной от 3 символов индекс возвращает кандидатов: id, в значении которых есть все
+ * триграммы подстроки. Это надмножество точного ответа, окончательная проверка остается за LIKE в БД
+ * триграммы строятся по свернутой строке (fold): без регистра и диакритики (ё - е, й - и, é - e), чтобы кандидаты
+ * подходили и для регистрозависимого сравнения (H2), и для сравнения по collation *_ci (MySQL)
+ * свертка надежна только для ASCII и русских букв; значения с другими символами (ß, лигатуры и т.п.)
+ * возвращаются кандидатами для любой подстроки, а по подстроке с такими символами индекс поиск не сужает
+ * не потокобезопасен, синхронизацию обеспечивает PlayerSearchIndex
+ */
+class TrigramIndex {
+
+    static final int GRAM = 3;
+
+    // комбинируемые знаки, остающиеся после разложения NFD (диакритика)
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Long, String> values = new HashMap<>();
+    // id значений, которые не удалось свернуть: они подходят под любую подстроку
+    private final Postings unfolded = new Postings();
+
+    void put(long id, String value) {
+        String previous = value == null ? values.remove(id) : values.put(id, value);
+        if (previous != null) {
+            if (previous.equals(value)) {
+                return;
+            }
+            String folded = fold(previous);
+            if (folded == null) {
+                unfolded.remove(id);
+            } else {
+                for (long gram : grams(folded)) {
+                    Postings ids = postings.get(gram);
+                    if (ids != null && ids.remove(id) && ids.size == 0) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+        if (value != null) {
+            String folded = fold(value);
+            if (folded == null) {
+                unfolded.add(id);
+            } else {
+                for (long gram : grams(folded)) {
+                    postings.computeIfAbsent(gram, key -> new Postings()).add(id);
+                }
+            }
+        }
+    }
+
+    void remove(long id) {
+        put(id, null);
+    }
+
+    /**
+     * отсортированные id кандидатов для подстроки term
+     * null - подстрока короче триграммы или ее не удалось свернуть, и индекс не может сузить поиск
+     */
+    long[] candidates(String term) {
+        String folded = fold(term);
+        if (folded == null || folded.length() < GRAM) {
+            return null;
+        }
+        Set<Long> grams = grams(folded);
+        Postings[] lists = new Postings[grams.size()];
+        int i = 0;
+        for (long gram : grams) {
+            Postings ids = postings.get(gram);
+            if (ids == null) {
+                return Arrays.copyOf(unfolded.ids, unfolded.size);
+            }
+            lists[i++] = ids;
+        }
+        // пересечение начинаем с самого короткого списка
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        long[] result = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int size = result.length;
+        for (int l = 1; l < lists.length && size > 0; l++) {
+            size = retain(result, size, lists[l]);
+        }
+        return unfolded.size == 0 ? Arrays.copyOf(result, size) : union(result, size, unfolded);
+    }
+
+    int gramCount() {
+        return postings.size();
+    }
+
+    int valueCount() {
+        return values.size();
+    }
+
+    // оставляет в result[0..size) только id, которые есть в other; возвращает новый размер
+    private static int retain(long[] result, int size, Postings other) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (Arrays.binarySearch(other.ids, 0, other.size, result[i]) >= 0) {
+                result[kept++] = result[i];
+            }
+        }
+        return kept;
+    }
+
+    // объединение result[0..size) и other, оба отсортированы
+    private static long[] union(long[] result, int size, Postings other) {
+        long[] merged = new long[size + other.size];
+        int i = 0, j = 0, count = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || i < size && result[i] < other.ids[j]) {
+                merged[count++] = result[i++];
+            } else if (i == size || other.ids[j] < result[i]) {
+                merged[count++] = other.ids[j++];
+            } else {
+                merged[count++] = result[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(merged, count);
+    }
+
+    /**
+     * строка без регистра и диакритики; null - в строке есть символы, свертка которых по collation
+     * может отличаться (не сводятся к ASCII или русской букве)
+     * каждый символ сворачивается отдельно, поэтому одинаковые символы в значении и подстроке сворачиваются одинаково
+     */
+    static String fold(String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        StringBuilder folded = null;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (isPlain(c)) {
+                if (folded != null) {
+                    folded.append(c);
+                }
+                continue;
+            }
+            char base = base(c);
+            if (base == 0) {
+                return null;
+            }
+            if (folded == null) {
+                folded = new StringBuilder(lower.length()).append(lower, 0, i);
+            }
+            folded.append(base);
+        }
+        return folded == null ? lower : folded.toString();
+    }
+
+    // й тоже сворачивается (в и): лишние кандидаты безопасны, а пропущенный игрок - нет
+    private static boolean isPlain(char c) {
+        return c < 0x80 || c >= 'а' && c <= 'я' && c != 'й';
+    }
+
+    // буква без диакритики (ё - е, й - и, é - e) или 0, если символ так не сводится к ASCII или русской букве
+    private static char base(char c) {
+        String stripped = MARKS.matcher(Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD)).replaceAll("");
+        return stripped.length() == 1 && isPlain(stripped.charAt(0)) ? stripped.charAt(0) : 0;
+    }
+
+    // триграмма упаковывается в long: три символа UTF-16 по 16 бит
+    private static Set<Long> grams(String folded) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= folded.length(); i++) {
+            grams.add(((long) folded.charAt(i) << 32) | ((long) folded.charAt(i + 1) << 16) | folded.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    // отсортированный по возрастанию массив id с запасом по емкости
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.game.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * счетчики конфликтов оптимистической блокировки при изменении игроков
+ * по каждому игроку считается количество конфликтов, чтобы было видно, кого меняют одновременно чаще всего
+ */
+@Component
+public class UpdateConflictMetrics {
+
+    // столько игроков с конфликтами запоминается, остальные учитываются только в общих счетчиках
+    private static final int MAX_TRACKED_PLAYERS = 1000;
+    private static final int HOTSPOTS = 10;
+
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder preconditionFailures = new LongAdder();
+    private final ConcurrentMap<Long, LongAdder> conflictsByPlayer = new ConcurrentHashMap<>();
+
+    /**
+     * изменение игрока id не записано: игрока успели изменить в другой транзакции
+     */
+    public void conflict(Long id) {
+        conflicts.increment();
+        LongAdder counter = conflictsByPlayer.get(id);
+        if (counter == null && conflictsByPlayer.size() < MAX_TRACKED_PLAYERS) {
+            counter = conflictsByPlayer.computeIfAbsent(id, key -> new LongAdder());
+        }
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    public void retry() {
+        retries.increment();
+    }
+
+    // попытки закончились, клиент получил 409
+    public void exhausted() {
+        exhausted.increment();
+    }
+
+    // версия из If-Match не совпала, клиент получил 412
+    public void preconditionFailed() {
+        preconditionFailures.increment();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("conflicts", conflicts.sum());
+        snapshot.put("retries", retries.sum());
+        snapshot.put("exhausted", exhausted.sum());
+        snapshot.put("preconditionFailures", preconditionFailures.sum());
+        List<Map<String, Object>> hotspots = conflictsByPlayer.entrySet().stream()
+                .map(entry -> {
+                    Map<String, Object> hotspot = new LinkedHashMap<>();
+                    hotspot.put("id", entry.getKey());
+                    hotspot.put("conflicts", entry.getValue().sum());
+                    return hotspot;
+                })
+                .sorted(Comparator.comparing((Map<String, Object> hotspot) -> (Long) hotspot.get("conflicts")).reversed())
+                .limit(HOTSPOTS)
+                .collect(Collectors.toList());
+        snapshot.put("hotspots", hotspots);
+        return snapshot;
+    }
+}
@@ -3,6 +3,8 @@ package com.game.controller;
 import com.game.config.AppConfig;
 import com.game.config.MyWebAppInit;
 import com.game.config.WebConfig;
+import com.game.service.PlayerQueryCache;
+import com.game.service.PlayerSearchIndex;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +18,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import javax.persistence.EntityManagerFactory;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles("dev")
 @ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class})
@@ -31,8 +35,21 @@ public abstract class AbstractTest {
         this.context = context;
     }
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlayerQueryCache queryCache;
+
+    @Autowired
+    PlayerSearchIndex searchIndex;
+
     @Before
     public void setup() {
+        // test.sql пересоздает таблицу player в обход приложения, поэтому кэши и индекс поиска игроков устаревают
+        entityManagerFactory.getCache().evictAll();
+        queryCache.invalidate();
+        searchIndex.rebuild();
         mockMvc = MockMvcBuilders
                 .webAppContextSetup(context)
                 .addFilter(((request, response, chain) -> {
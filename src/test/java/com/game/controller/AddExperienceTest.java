@@ -0,0 +1,100 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.service.PlayerService;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AddExperienceTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void addExperienceRecalculatesLevel() throws Exception {
+        PlayerInfoTest before = testsHelper.getPlayerInfosById(3);
+
+        PlayerInfoTest actual = addExperience(3, 1000);
+
+        assertProgress(before.experience + 1000, actual);
+        assertEquals("Изменение опыта должно сохраняться в БД.", actual, player(3));
+    }
+
+    //test2
+    @Test
+    public void addExperienceIsClampedToRange() throws Exception {
+        assertProgress(10000000, addExperience(3, 20000000));
+        assertProgress(0, addExperience(3, -20000000));
+    }
+
+    //test3
+    @Test
+    public void addExperienceNotExistOrInvalid() throws Exception {
+        mockMvc.perform(post("/rest/players/415/experience?delta=10")).andExpect(status().isNotFound());
+        mockMvc.perform(post("/rest/players/0/experience?delta=10")).andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/players/3/experience")).andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void concurrentGrantsAreNotLost() throws Exception {
+        PlayerService playerService = context.getBean(PlayerService.class);
+        PlayerInfoTest before = testsHelper.getPlayerInfosById(7);
+        int threads = 16;
+        int grantsPerThread = 125;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < grantsPerThread; i++) {
+                        playerService.addExperience(7L, 3);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertProgress(before.experience + 3 * threads * grantsPerThread, player(7));
+    }
+
+    private void assertProgress(int experience, PlayerInfoTest actual) {
+        int level = (int) ((Math.sqrt(2500 + 200 * experience) - 50) / 100);
+        assertEquals("Не правильный опыт после начисления.", experience, actual.experience);
+        assertEquals("Не правильный уровень после начисления опыта.", level, actual.level);
+        assertEquals("Не правильный опыт до следующего уровня после начисления опыта.",
+                50 * (level + 1) * (level + 2) - experience, actual.untilNextLevel);
+    }
+
+    private PlayerInfoTest addExperience(long id, int delta) throws Exception {
+        String content = mockMvc.perform(post("/rest/players/" + id + "/experience?delta=" + delta))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, PlayerInfoTest.class);
+    }
+
+    private PlayerInfoTest player(long id) throws Exception {
+        String content = mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, PlayerInfoTest.class);
+    }
+}
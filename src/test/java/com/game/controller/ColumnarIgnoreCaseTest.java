@@ -0,0 +1,117 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// хранилище сравнивает строки как utf8_general_ci (профиль prod), хотя БД теста - H2
+@TestPropertySource(properties = {
+        "player.columnar.enabled=true",
+        "player.columnar.ignore-case=true"
+})
+public class ColumnarIgnoreCaseTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    @Before
+    public void rebuildStore() throws Exception {
+        mockMvc.perform(post("/rest/admin/columnar/rebuild")).andExpect(status().isOk());
+    }
+
+    //test1
+    @Test
+    public void nameFilterIgnoresCase() throws Exception {
+        long declined = declined();
+        List<PlayerInfoTest> expected = testsHelper.getAllPlayers().stream()
+                .filter(player -> player.name.toLowerCase(Locale.ROOT).contains("ар"))
+                .collect(Collectors.toList());
+
+        assertEquals("Поиск по name должен не различать регистр.", expected,
+                getPlayers("/rest/players?name=АР&pageSize=40"));
+        assertEquals("Количество по name должно не различать регистр.", String.valueOf(expected.size()),
+                content("/rest/players/count?name=аР"));
+        assertEquals("Запросы без регистра должны обслуживаться хранилищем.", declined, declined());
+    }
+
+    //test2
+    @Test
+    public void equalNamesAreOrderedById() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (String name : Arrays.asList("ЁЛКА", "елка", "Ёлка")) {
+            ids.add(createPlayer(name));
+        }
+
+        assertEquals("Имена, равные без регистра и диакритики, должны находиться вместе.", ids,
+                getPlayers("/rest/players?name=ёлк&pageSize=40").stream()
+                        .map(player -> player.id).collect(Collectors.toList()));
+
+        List<PlayerInfoTest> all = getPlayers("/rest/players?pageSize=100");
+        all.sort(Comparator.<PlayerInfoTest, String>comparing(
+                player -> player.name.toUpperCase(Locale.ROOT).replace('Ё', 'Е').replace('Й', 'И'))
+                .thenComparing(player -> player.id));
+        assertEquals("Сортировка по name должна не различать регистр, а равные имена - идти по id.",
+                all.stream().map(player -> player.id).collect(Collectors.toList()),
+                getPlayers("/rest/players?order=NAME&pageSize=100").stream()
+                        .map(player -> player.id).collect(Collectors.toList()));
+    }
+
+    //test3
+    @Test
+    public void unfoldedNamesAreLeftToDatabase() throws Exception {
+        long id = createPlayer("Straße");
+        long declined = declined();
+
+        // имя со ß нельзя сравнить без регистра так же, как MySQL: запросы по строкам выполняет БД
+        assertEquals("Запрос по name должен выполняться в БД.", "1", content("/rest/players/count?name=aß"));
+        assertEquals("Запрос по name должен выполняться в БД.", declined + 1, declined());
+        assertEquals("Сортировка по name должна выполняться в БД.", id,
+                getPlayers("/rest/players?order=NAME&pageSize=1").get(0).id.longValue());
+        assertEquals("Сортировка по name должна выполняться в БД.", declined + 2, declined());
+
+        content("/rest/players/count?race=HUMAN");
+        assertEquals("Запросы без строк должны по-прежнему обслуживаться хранилищем.", declined + 2, declined());
+    }
+
+    private long createPlayer(String name) throws Exception {
+        String content = mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON.replace("Амарылис", name)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content).get("id").asLong();
+    }
+
+    private long declined() throws Exception {
+        return mapper.readTree(content("/rest/admin/columnar")).get("declined").asLong();
+    }
+
+    private List<PlayerInfoTest> getPlayers(String url) throws Exception {
+        return mapper.readValue(content(url), typeReference);
+    }
+
+    private String content(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
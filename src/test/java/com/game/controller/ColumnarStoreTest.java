@@ -0,0 +1,280 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.models.Player;
+import com.game.repository.PlayerRepository;
+import com.game.repository.PlayerSpecifications;
+import com.game.service.PlayerColumnStore;
+import com.game.service.PlayerFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "player.columnar.enabled=true")
+public class ColumnarStoreTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    // таблица пересоздается скриптом перед каждым тестом в обход приложения, поэтому хранилище заполняем заново
+    @Before
+    public void rebuildStore() throws Exception {
+        JsonNode stats = stats(mockMvc.perform(post("/rest/admin/columnar/rebuild"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Хранилище должно быть готово.", true, stats.get("ready").asBoolean());
+        assertEquals("В хранилище должны быть все игроки.", testsHelper.getAllPlayers().size(),
+                stats.get("players").asInt());
+    }
+
+    //test1
+    @Test
+    public void filtersMatchDatabase() throws Exception {
+        List<PlayerInfoTest> all = testsHelper.getAllPlayers();
+
+        assertEquals("Возвращается не правильный результат при фильтре по race.",
+                testsHelper.getPlayerInfosByRace(Race.ELF, all), getPlayers("/rest/players?race=ELF&pageSize=40"));
+        assertEquals("Возвращается не правильный результат при фильтре по name.",
+                testsHelper.getPlayerInfosByName("ари", all), getPlayers("/rest/players?name=ари&pageSize=40"));
+        assertEquals("Возвращается не правильный результат при фильтре по title и profession.",
+                testsHelper.getPlayerInfosByProfession(Profession.WARRIOR, testsHelper.getPlayerInfosByTitle("Воин", all)),
+                getPlayers("/rest/players?title=Воин&profession=WARRIOR&pageSize=40"));
+        assertEquals("Возвращается не правильный результат при фильтре по опыту и уровню.",
+                testsHelper.getPlayerInfosByMaxLevel(20, testsHelper.getPlayerInfosByMinExperience(30000, all)),
+                getPlayers("/rest/players?minExperience=30000&maxLevel=20&pageSize=40"));
+        assertEquals("Возвращается не правильный результат при фильтре по датам и бану.",
+                testsHelper.getPlayerInfosByBaned(false, testsHelper.getPlayerInfosByBefore(1104530400000L,
+                        testsHelper.getPlayerInfosByAfter(1009843200000L, all))),
+                getPlayers("/rest/players?after=1009843200000&before=1104530400000&banned=false&pageSize=40"));
+    }
+
+    //test2
+    @Test
+    public void pagesAreSortedByOrderThenId() throws Exception {
+        List<PlayerInfoTest> all = testsHelper.getAllPlayers();
+        for (PlayerOrder order : PlayerOrder.values()) {
+            List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByPage(2, 7,
+                    testsHelper.getPlayerInfosSortedBy(order, all));
+
+            assertEquals("Возвращается не правильная страница при сортировке " + order + ".", expected,
+                    getPlayers("/rest/players?order=" + order + "&pageNumber=2&pageSize=7"));
+        }
+    }
+
+    //test3
+    @Test
+    public void countAndPageWithTotal() throws Exception {
+        List<PlayerInfoTest> elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers());
+
+        assertEquals("Возвращается не правильное количество игроков.", String.valueOf(elves.size()),
+                content("/rest/players/count?race=ELF"));
+
+        JsonNode page = mapper.readTree(content("/rest/players/page?race=ELF&order=LEVEL&pageSize=4"));
+        List<PlayerInfoTest> players = mapper.readValue(page.get("players").toString(), typeReference);
+
+        assertEquals("Возвращается не правильное общее количество игроков.", elves.size(), page.get("total").asInt());
+        assertEquals("Возвращается не правильная страница игроков.",
+                testsHelper.getPlayerInfosByPage(0, 4, testsHelper.getPlayerInfosSortedBy(PlayerOrder.LEVEL, elves)),
+                players);
+    }
+
+    //test4
+    @Test
+    public void storeFollowsCreateUpdateExperienceAndDelete() throws Exception {
+        String content = mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = mapper.readTree(content).get("id").asLong();
+
+        assertEquals("Созданный игрок должен находиться по имени.", 1, getPlayers("/rest/players?name=мары").size());
+
+        mockMvc.perform(post("/rest/players/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Зерриан\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("После изменения игрок не должен находиться по старому имени.", 0,
+                getPlayers("/rest/players?name=мары").size());
+        assertEquals("После изменения игрок должен находиться по новому имени.", 1,
+                getPlayers("/rest/players?name=ерриа").size());
+
+        PlayerInfoTest granted = mapper.readValue(mockMvc.perform(post("/rest/players/" + id + "/experience?delta=5000000"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), PlayerInfoTest.class);
+
+        assertEquals("После начисления опыта игрок должен находиться по новому уровню.", granted,
+                getPlayers("/rest/players?name=ерриа&minLevel=" + granted.level).get(0));
+
+        mockMvc.perform(delete("/rest/players/" + id)).andExpect(status().isOk());
+
+        assertEquals("Удаленный игрок не должен находиться.", "0", content("/rest/players/count?name=ерриа"));
+        assertEquals("Удаленный игрок должен быть убран из хранилища.", testsHelper.getAllPlayers().size(),
+                stats(content("/rest/admin/columnar")).get("players").asInt());
+    }
+
+    //test5
+    @Test
+    public void combinedAndEmptyFilters() throws Exception {
+        List<PlayerInfoTest> all = testsHelper.getAllPlayers();
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByMinLevel(5,
+                testsHelper.getPlayerInfosByBaned(true, testsHelper.getPlayerInfosByRace(Race.HUMAN,
+                        testsHelper.getPlayerInfosByTitle("а", all))));
+
+        assertEquals("Возвращается не правильный результат при нескольких фильтрах.", expected,
+                getPlayers("/rest/players?title=а&race=HUMAN&banned=true&minLevel=5&pageSize=40"));
+        assertEquals("Не должно быть игроков с minLevel больше maxLevel.", "0",
+                content("/rest/players/count?minLevel=10&maxLevel=5"));
+        assertEquals("Не должно быть игроков с именем, которого нет ни у кого.", "0",
+                content("/rest/players/count?name=Ъъъ&race=ELF"));
+    }
+
+    //test6
+    @Test
+    public void multiKeySortMatchesDatabaseOrder() throws Exception {
+        List<PlayerInfoTest> expected = new ArrayList<>(testsHelper.getAllPlayers());
+        expected.sort(Comparator.<PlayerInfoTest, Integer>comparing(player -> player.level).reversed()
+                .thenComparing(player -> player.name)
+                .thenComparing(player -> player.id));
+
+        assertEquals("Возвращается не правильный порядок при сортировке по нескольким полям.",
+                testsHelper.getPlayerInfosByPage(1, 8, expected),
+                getPlayers("/rest/players?order=LEVEL:DESC,NAME:ASC&pageNumber=1&pageSize=8"));
+
+        List<PlayerInfoTest> byBirthdayDesc = new ArrayList<>(testsHelper.getAllPlayers());
+        byBirthdayDesc.sort(Comparator.<PlayerInfoTest, Long>comparing(player -> player.birthday)
+                .thenComparing(player -> player.id).reversed());
+        assertEquals("Возвращается не правильный порядок при сортировке по убыванию.",
+                testsHelper.getPlayerInfosByPage(0, 6, byBirthdayDesc),
+                getPlayers("/rest/players?order=BIRTHDAY:DESC&pageSize=6"));
+    }
+
+    //test7
+    @Test
+    public void deletedBannedPlayersDoNotHideOthers() throws Exception {
+        List<PlayerInfoTest> all = testsHelper.getAllPlayers();
+        List<PlayerInfoTest> kept = testsHelper.getPlayerInfosByBaned(false, all).subList(0, 2);
+        // удаляются все забаненные и почти все остальные: забаненных среди удаленных больше, чем живых игроков
+        for (PlayerInfoTest player : all) {
+            if (!kept.contains(player)) {
+                mockMvc.perform(delete("/rest/players/" + player.id)).andExpect(status().isOk());
+            }
+        }
+
+        assertEquals("Возвращается не правильный результат при фильтре по бану после удаления забаненных.", kept,
+                getPlayers("/rest/players?banned=false&pageSize=40"));
+        assertEquals("Не должно быть забаненных игроков после их удаления.", "0",
+                content("/rest/players/count?banned=true"));
+    }
+
+    //test8
+    @Test
+    public void birthdayTimeOfDayIsIgnoredLikeDatabase() throws Exception {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate date = LocalDate.of(2010, 5, 5);
+        long afternoon = date.atTime(15, 0).atZone(zone).toInstant().toEpochMilli();
+        String content = mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON.replace("988059600000", String.valueOf(afternoon))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = mapper.readTree(content).get("id").asLong();
+
+        PlayerRepository playerRepository = context.getBean(PlayerRepository.class);
+        long[][] bounds = {
+                {date.atTime(14, 0).atZone(zone).toInstant().toEpochMilli(), 0},
+                {0, date.atTime(16, 0).atZone(zone).toInstant().toEpochMilli()},
+                {date.minusDays(1).atTime(23, 0).atZone(zone).toInstant().toEpochMilli(),
+                        date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() + 1}
+        };
+        for (long[] bound : bounds) {
+            Long after = bound[0] == 0 ? null : bound[0];
+            Long before = bound[1] == 0 ? null : bound[1];
+            PlayerFilter filter = new PlayerFilter(null, null, null, null, after, before, null,
+                    null, null, null, null);
+            entityManagerFactory.getCache().evictAll();
+            List<Long> expected = playerRepository.findAll(PlayerSpecifications.byFilter(filter),
+                    Sort.by("id")).stream().map(Player::getId).collect(Collectors.toList());
+
+            String url = "/rest/players?pageSize=40" + (after == null ? "" : "&after=" + after)
+                    + (before == null ? "" : "&before=" + before);
+            assertEquals("Фильтр по датам должен совпадать с БД: " + url, expected,
+                    getPlayers(url).stream().map(player -> player.id).collect(Collectors.toList()));
+        }
+
+        long midnight = date.atStartOfDay(zone).toInstant().toEpochMilli();
+        assertEquals("Дата регистрации должна возвращаться без времени, как из БД.", midnight,
+                (long) getPlayers("/rest/players?name=Амарылис&pageSize=40").stream()
+                        .filter(player -> player.id == id).findFirst().get().birthday);
+    }
+
+    //test9
+    @Test
+    public void playerInsertedBeforeDeletedRowIsVisible() throws Exception {
+        long id = createPlayer();
+        PlayerRepository playerRepository = context.getBean(PlayerRepository.class);
+        PlayerColumnStore store = context.getBean(PlayerColumnStore.class);
+        // игрок с меньшим id приходит в хранилище позже игрока с большим id, который к тому времени уже удален
+        Player later = playerRepository.findById(id).get();
+        later.setId(id + 2);
+        store.put(later);
+        store.remove(id + 2);
+        Player earlier = playerRepository.findById(id).get();
+        earlier.setId(id + 1);
+        store.put(earlier);
+
+        assertEquals("Игрок, добавленный перед удаленной строкой, должен находиться.", Arrays.asList(id, id + 1),
+                getPlayers("/rest/players?name=Амарылис&pageSize=40").stream()
+                        .map(player -> player.id).collect(Collectors.toList()));
+        assertEquals("Игрок, добавленный перед удаленной строкой, должен учитываться в количестве.", "2",
+                content("/rest/players/count?name=Амарылис"));
+    }
+
+    private long createPlayer() throws Exception {
+        String content = mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content).get("id").asLong();
+    }
+
+    private List<PlayerInfoTest> getPlayers(String url) throws Exception {
+        return mapper.readValue(content(url), typeReference);
+    }
+
+    private String content(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private JsonNode stats(String content) throws Exception {
+        return mapper.readTree(content);
+    }
+}
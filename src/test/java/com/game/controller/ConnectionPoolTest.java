@@ -0,0 +1,52 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConnectionPoolTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private DataSource dataSource;
+
+    //test1
+    @Test
+    public void dataSourceIsPooled() {
+        assertTrue("Источник данных должен быть пулом соединений.", dataSource instanceof HikariDataSource);
+        assertEquals("Размер пула должен браться из application.properties.", 10,
+                ((HikariDataSource) dataSource).getMaximumPoolSize());
+    }
+
+    //test2
+    @Test
+    public void poolMetricsCountAcquiredConnections() throws Exception {
+        long before = metrics().get("acquired").asLong();
+
+        mockMvc.perform(get("/rest/players/1")).andExpect(status().isOk());
+
+        JsonNode after = metrics();
+        assertTrue("Получение соединения должно учитываться в метриках пула.", after.get("acquired").asLong() > before);
+        assertEquals("Все соединения должны быть возвращены в пул.", 0, after.get("active").asInt());
+        assertEquals("Максимальный размер пула.", 10, after.get("max").asInt());
+        assertTrue("В метриках должно быть время получения соединения.", after.has("acquireAvgMicros"));
+        assertTrue("В метриках должно быть количество ожидающих потоков.", after.has("waiting"));
+    }
+
+    private JsonNode metrics() throws Exception {
+        String content = mockMvc.perform(get("/rest/admin/pool"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+}
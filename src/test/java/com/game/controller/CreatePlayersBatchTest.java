@@ -0,0 +1,109 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.StringJoiner;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CreatePlayersBatchTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void createPlayersBatchReportsErrorsPerItem() throws Exception {
+        JsonNode result = createBatch("[" + TestsHelper.NORMAL_JSON + ","
+                + TestsHelper.NEGATIVE_BIRTHDAY_JSON + ","
+                + TestsHelper.BANNED_TRUE_JSON + ","
+                + TestsHelper.TOO_BIG_EXPERIENCE_JSON + "]");
+
+        assertEquals("Возвращается не правильное количество созданных игроков.", 2, result.get("created").asInt());
+        assertEquals("Возвращается не правильное количество отклоненных игроков.", 2, result.get("rejected").asInt());
+
+        JsonNode items = result.get("items");
+        assertEquals("Результат должен содержать элемент для каждого игрока из запроса.", 4, items.size());
+        assertEquals("Первый игрок должен получить следующий id.", 41L, items.get(0).get("id").asLong());
+        assertTrue("Игрок с отрицательной датой регистрации не должен создаваться.",
+                items.get(1).get("id").isNull() && !items.get(1).get("error").isNull());
+        assertEquals("Второй созданный игрок должен получить следующий id.", 42L, items.get(2).get("id").asLong());
+        assertTrue("Игрок со слишком большим опытом не должен создаваться.",
+                items.get(3).get("id").isNull() && !items.get(3).get("error").isNull());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals("Элементы результата должны идти в порядке запроса.", i, items.get(i).get("index").asInt());
+        }
+    }
+
+    //test2
+    @Test
+    public void createPlayersBatchSavesCalculatedLevel() throws Exception {
+        createBatch("[" + TestsHelper.BANNED_TRUE_JSON + "]");
+
+        String content = mockMvc.perform(get("/rest/players/41"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode player = mapper.readTree(content);
+
+        assertEquals("Не сохранено имя игрока.", "Амарылис", player.get("name").asText());
+        assertEquals("Не сохранен признак бана игрока.", true, player.get("banned").asBoolean());
+        assertEquals("Не правильно вычислен уровень игрока.", 35, player.get("level").asInt());
+        assertEquals("Не правильно вычислен опыт до следующего уровня.", 2614, player.get("untilNextLevel").asInt());
+    }
+
+    //test3
+    @Test
+    public void createPlayersBatchEmptyArrayCreatesNothing() throws Exception {
+        JsonNode result = createBatch("[]");
+
+        assertEquals("Пустой запрос не должен создавать игроков.", 0, result.get("created").asInt());
+
+        String count = mockMvc.perform(get("/rest/players/count"))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Количество игроков не должно измениться.", "40", count);
+    }
+
+    //test4
+    @Test
+    public void createPlayersBatchMapsIdsAcrossChunks() throws Exception {
+        // больше одной пачки INSERT (PlayerRepositoryImpl.BATCH_SIZE = 500): ключи второй пачки тоже должны совпасть
+        int count = 501;
+        StringJoiner json = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < count; i++) {
+            json.add(TestsHelper.NORMAL_JSON.replace("Амарылис", "Игрок" + i));
+        }
+        JsonNode result = createBatch(json.toString());
+
+        assertEquals("Возвращается не правильное количество созданных игроков.", count, result.get("created").asInt());
+        JsonNode items = result.get("items");
+        long previousId = 0;
+        for (int i = 0; i < count; i++) {
+            long id = items.get(i).get("id").asLong();
+            assertTrue("id созданных игроков должны быть разными и возрастать: " + previousId + ", " + id,
+                    id > previousId);
+            previousId = id;
+
+            String content = mockMvc.perform(get("/rest/players/" + id))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            assertEquals("По id из результата должен читаться игрок из того же элемента запроса.", "Игрок" + i,
+                    mapper.readTree(content).get("name").asText());
+        }
+    }
+
+    private JsonNode createBatch(String json) throws Exception {
+        String content = mockMvc.perform(post("/rest/players/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+}
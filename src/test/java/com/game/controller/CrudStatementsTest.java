@@ -0,0 +1,79 @@
+package com.game.controller;
+
+import com.game.controller.utils.TestsHelper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * количество SQL-выражений, которые выполняет один запрос к игроку
+ */
+public class CrudStatementsTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void getPlayerIsOneSelectThenCached() throws Exception {
+        assertEquals("Чтение игрока должно выполнять один SELECT.", 1L,
+                statements(get("/rest/players/3"), status().isOk()));
+        assertEquals("Повторное чтение игрока не должно обращаться к БД.", 0L,
+                statements(get("/rest/players/3"), status().isOk()));
+    }
+
+    //test2
+    @Test
+    public void getMissingPlayerIsOneSelect() throws Exception {
+        assertEquals("Поиск несуществующего игрока должен выполнять один SELECT.", 1L,
+                statements(get("/rest/players/415"), status().isNotFound()));
+    }
+
+    //test3
+    @Test
+    public void deletePlayerIsOneDelete() throws Exception {
+        assertEquals("Удаление игрока должно выполнять один DELETE.", 1L,
+                statements(delete("/rest/players/3"), status().isOk()));
+        assertEquals("Удаление несуществующего игрока должно выполнять один DELETE.", 1L,
+                statements(delete("/rest/players/3"), status().isNotFound()));
+        assertEquals("Удаленный игрок не должен читаться из кэша.", 1L,
+                statements(get("/rest/players/3"), status().isNotFound()));
+    }
+
+    //test4
+    @Test
+    public void updateCachedPlayerIsOneUpdate() throws Exception {
+        statements(get("/rest/players/3"), status().isOk());
+
+        assertEquals("Изменение игрока из кэша должно выполнять только UPDATE.", 1L,
+                statements(update(3), status().isOk()));
+    }
+
+    //test5
+    @Test
+    public void updatePlayerIsSelectAndUpdate() throws Exception {
+        assertEquals("Изменение игрока должно выполнять один SELECT и один UPDATE.", 2L,
+                statements(update(3), status().isOk()));
+        assertEquals("Изменение несуществующего игрока должно выполнять один SELECT.", 1L,
+                statements(update(415), status().isNotFound()));
+    }
+
+    private RequestBuilder update(long id) {
+        return post("/rest/players/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON);
+    }
+
+    private long statements(RequestBuilder request, ResultMatcher expectedStatus) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        mockMvc.perform(request).andExpect(expectedStatus);
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
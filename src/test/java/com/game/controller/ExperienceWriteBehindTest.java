@@ -0,0 +1,148 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.service.ExperienceBuffer;
+import com.game.service.PlayerService;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// буфер записывается в БД только по запросу теста
+@TestPropertySource(properties = {
+        "player.experience.write-behind.enabled=true",
+        "player.experience.write-behind.flush-interval-ms=3600000"
+})
+public class ExperienceWriteBehindTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @After
+    public void clearBuffer() {
+        ExperienceBuffer buffer = context.getBean(ExperienceBuffer.class);
+        for (long id = 1; id <= 40; id++) {
+            buffer.discard(id);
+        }
+    }
+
+    //test1
+    @Test
+    public void bufferedGrantsAreVisibleAndWrittenOnFlush() throws Exception {
+        PlayerInfoTest before = testsHelper.getPlayerInfosById(3);
+
+        mockMvc.perform(post("/rest/players/3/experience?delta=1000")).andExpect(status().isOk());
+        PlayerInfoTest granted = player(mockMvc.perform(post("/rest/players/3/experience?delta=500"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+
+        assertEquals("Ответ должен учитывать начисления из буфера.", before.experience + 1500, granted.experience);
+        assertEquals("Чтение игрока должно учитывать начисления из буфера.", granted, player(content("/rest/players/3")));
+        assertEquals("До записи буфера начисления не должны попадать в БД.", "0",
+                content("/rest/players/count?minExperience=" + (before.experience + 1) + "&name=" + before.name));
+
+        JsonNode stats = mapper.readTree(mockMvc.perform(post("/rest/admin/experience-buffer/flush"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+
+        assertEquals("После записи буфер должен быть пустым.", 0, stats.get("pendingPlayers").asInt());
+        assertEquals("После записи буфера начисления должны быть в БД.", "1",
+                content("/rest/players/count?minExperience=" + (before.experience + 1500) + "&name=" + before.name));
+        assertEquals("После записи буфера игрок должен читаться из БД с начислениями.", granted,
+                player(content("/rest/players/3")));
+    }
+
+    //test2
+    @Test
+    public void grantsDuringFlushesAreNotLost() throws Exception {
+        PlayerService playerService = context.getBean(PlayerService.class);
+        ExperienceBuffer buffer = context.getBean(ExperienceBuffer.class);
+        PlayerInfoTest before = testsHelper.getPlayerInfosById(7);
+        int threads = 8;
+        int grantsPerThread = 500;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < grantsPerThread; i++) {
+                        playerService.addExperience(7L, 2);
+                    }
+                }));
+            }
+            Future<?> flusher = executor.submit(() -> {
+                while (!futures.stream().allMatch(Future::isDone)) {
+                    buffer.flush();
+                }
+            });
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            flusher.get();
+        } finally {
+            executor.shutdown();
+        }
+        buffer.flush();
+
+        assertEquals("Начисления не должны теряться при записи буфера.",
+                before.experience + 2 * threads * grantsPerThread, player(content("/rest/players/7")).experience);
+    }
+
+    //test3
+    @Test
+    public void updateWaitsForRunningFlush() throws Exception {
+        ExperienceBuffer buffer = context.getBean(ExperienceBuffer.class);
+        mockMvc.perform(post("/rest/players/5/experience?delta=1000")).andExpect(status().isOk());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> update;
+            // запись всего буфера идет под монитором буфера: пока он занят, изменение игрока должно ждать,
+            // иначе начисления, уже забранные этой записью, попадут в БД после изменения
+            synchronized (buffer) {
+                update = executor.submit(() -> mockMvc.perform(post("/rest/players/5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"experience\": 500}"))
+                        .andExpect(status().isOk()));
+                try {
+                    update.get(1, TimeUnit.SECONDS);
+                    fail("Изменение игрока не должно выполняться во время записи буфера.");
+                } catch (TimeoutException expected) {
+                    // изменение ждет окончания записи
+                }
+            }
+            update.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals("Изменение игрока должно выполняться после начислений из буфера.", 500,
+                player(content("/rest/players/5")).experience);
+    }
+
+    private String content(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private PlayerInfoTest player(String content) throws Exception {
+        return mapper.readValue(content, PlayerInfoTest.class);
+    }
+}
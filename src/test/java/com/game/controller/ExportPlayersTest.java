@@ -0,0 +1,73 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExportPlayersTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void exportWithoutFiltersReturnsAllPlayersOnePerLine() throws Exception {
+        MockHttpServletResponse response = perform("/rest/players/export");
+
+        assertTrue("Выгрузка должна возвращаться в формате NDJSON.",
+                response.getContentType().startsWith(PlayerController.NDJSON));
+        assertTrue("Каждый игрок должен заканчиваться переводом строки.",
+                response.getContentAsString().endsWith("\n"));
+        assertEquals("Возвращается не правильный результат при выгрузке всех игроков.",
+                testsHelper.getAllPlayers(), players(response));
+    }
+
+    //test2
+    @Test
+    public void exportWithFiltersRaceOrderLevel() throws Exception {
+        MockHttpServletResponse response = perform("/rest/players/export?race=ELF&order=LEVEL");
+
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosSortedBy(PlayerOrder.LEVEL,
+                testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers()));
+
+        assertEquals("Возвращается не правильный результат при выгрузке с параметрами race и order.",
+                expected, players(response));
+    }
+
+    //test3
+    @Test
+    public void exportWithoutMatchesReturnsEmptyBody() throws Exception {
+        MockHttpServletResponse response = perform("/rest/players/export?name=несуществующий");
+
+        assertEquals("Выгрузка без подходящих игроков должна быть пустой.", "", response.getContentAsString());
+    }
+
+    private MockHttpServletResponse perform(String url) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        response.setCharacterEncoding("UTF-8");
+        return response;
+    }
+
+    private List<PlayerInfoTest> players(MockHttpServletResponse response) throws Exception {
+        List<PlayerInfoTest> players = new ArrayList<>();
+        for (String line : response.getContentAsString().split("\n")) {
+            if (!line.isEmpty()) {
+                players.add(mapper.readValue(line, PlayerInfoTest.class));
+            }
+        }
+        return players;
+    }
+}
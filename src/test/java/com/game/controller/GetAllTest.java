@@ -172,4 +172,61 @@ public class GetAllTest extends AbstractTest {
 
         assertEquals("Возвращается не правильный результат при запросе GET /rest/players с параметрами after, before, minExperience и maxExperience.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test9
+    @Test
+    public void getAllWithLikeWildcardsInNameAndTitle() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/players?name=%25&title=_"))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        String contentAsString = result.getResponse().getContentAsString();
+
+        List<PlayerInfoTest> actual = mapper.readValue(contentAsString, typeReference);
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByPage(0, 3,
+                testsHelper.getPlayerInfosByName("%",
+                        testsHelper.getPlayerInfosByTitle("_", testsHelper.getAllPlayers())));
+
+        assertEquals("Символы % и _ в параметрах name и title должны искаться как обычные символы.", expected, actual);
+    }
+
+    //test10
+    @Test
+    public void getAllWithOrderLevelPageNumberPageSize() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/players?order=LEVEL&pageNumber=2&pageSize=5"))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        String contentAsString = result.getResponse().getContentAsString();
+
+        List<PlayerInfoTest> actual = mapper.readValue(contentAsString, typeReference);
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByPage(2, 5,
+                testsHelper.getPlayerInfosSortedBy(PlayerOrder.LEVEL, testsHelper.getAllPlayers()));
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players с параметрами order=LEVEL, pageNumber и pageSize.", expected, actual);
+    }
+
+    //test11
+    @Test
+    public void getAllWithFiltersRaceOrderNamePageNumber() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/players?race=ELF&order=NAME&pageNumber=1"))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        String contentAsString = result.getResponse().getContentAsString();
+
+        List<PlayerInfoTest> actual = mapper.readValue(contentAsString, typeReference);
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByPage(1, 3,
+                testsHelper.getPlayerInfosSortedBy(PlayerOrder.NAME,
+                        testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers())));
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players с параметрами race, order=NAME и pageNumber.", expected, actual);
+    }
+
+    //test12
+    @Test
+    public void getAllWithZeroPageSize() throws Exception {
+        mockMvc.perform(get("/rest/players?pageSize=0"))
+                .andExpect(status().isBadRequest());
+    }
+}
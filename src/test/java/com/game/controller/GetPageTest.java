@@ -0,0 +1,73 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetPageTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void getPageWithoutFiltersReturnsFirstPageAndTotal() throws Exception {
+        JsonNode page = perform("/rest/players/page");
+
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByPage(0, 3, testsHelper.getAllPlayers());
+
+        assertEquals("Возвращается не правильная страница при запросе GET /rest/players/page.", expected, players(page));
+        assertEquals("Возвращается не правильное количество при запросе GET /rest/players/page.",
+                (long) testsHelper.getAllPlayers().size(), page.get("total").asLong());
+    }
+
+    //test2
+    @Test
+    public void getPageWithFiltersRaceOrderLevelPageNumber() throws Exception {
+        JsonNode page = perform("/rest/players/page?race=ELF&order=LEVEL&pageNumber=1&pageSize=4");
+
+        List<PlayerInfoTest> elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers());
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByPage(1, 4,
+                testsHelper.getPlayerInfosSortedBy(PlayerOrder.LEVEL, elves));
+
+        assertEquals("Возвращается не правильная страница при запросе GET /rest/players/page с параметрами race, order, pageNumber и pageSize.",
+                expected, players(page));
+        assertEquals("Возвращается не правильное количество при запросе GET /rest/players/page с параметрами race, order, pageNumber и pageSize.",
+                (long) elves.size(), page.get("total").asLong());
+    }
+
+    //test3
+    @Test
+    public void getPageBeyondLastPageReturnsEmptyPageAndTotal() throws Exception {
+        JsonNode page = perform("/rest/players/page?banned=true&pageNumber=10");
+
+        assertEquals("Страница за пределами результата должна быть пустой.", 0, page.get("players").size());
+        assertEquals("Возвращается не правильное количество для страницы за пределами результата.",
+                (long) testsHelper.getPlayerInfosByBaned(true, testsHelper.getAllPlayers()).size(),
+                page.get("total").asLong());
+    }
+
+    private JsonNode perform(String url) throws Exception {
+        ResultActions resultActions = mockMvc.perform(get(url))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        return mapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private List<PlayerInfoTest> players(JsonNode page) throws Exception {
+        return Arrays.asList(mapper.treeToValue(page.get("players"), PlayerInfoTest[].class));
+    }
+}
@@ -0,0 +1,39 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class HibernateStatisticsTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void statisticsCountQueriesAndEntityLoads() throws Exception {
+        mockMvc.perform(delete("/rest/admin/hibernate")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players?race=ELF&pageSize=20")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/1")).andExpect(status().isOk());
+
+        JsonNode statistics = statistics();
+        assertTrue("Статистика должна быть включена.", statistics.get("enabled").asBoolean());
+        assertEquals("Должен считаться запрос списка игроков.", 1, statistics.get("queries").asInt());
+        assertEquals("Должны считаться загруженные игроки.", 11, statistics.get("entityLoads").asInt());
+        assertTrue("Должны быть запросы с наибольшим временем.", statistics.get("topQueries").size() == 1);
+        assertEquals("Для запроса должно считаться количество строк.", 10,
+                statistics.get("topQueries").get(0).get("rows").asInt());
+    }
+
+    private JsonNode statistics() throws Exception {
+        String content = mockMvc.perform(get("/rest/admin/hibernate"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+}
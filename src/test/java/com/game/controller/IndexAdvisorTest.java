@@ -0,0 +1,65 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.repository.PlayerIndex;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class IndexAdvisorTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private DataSource dataSource;
+
+    //test1
+    @Test
+    public void schemaContainsAllPlayerIndexes() throws Exception {
+        Set<String> actual = new HashSet<>();
+        try (Connection connection = dataSource.getConnection();
+             ResultSet indexes = connection.getMetaData().getIndexInfo(null, null, "PLAYER", false, false)) {
+            while (indexes.next()) {
+                actual.add(String.valueOf(indexes.getString("INDEX_NAME")).toLowerCase());
+            }
+        }
+        for (PlayerIndex index : PlayerIndex.values()) {
+            if (index != PlayerIndex.PRIMARY) {
+                assertTrue("В схеме нет индекса " + index.getIndexName(), actual.contains(index.getIndexName()));
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void reportContainsQueriesWithServingIndex() throws Exception {
+        mockMvc.perform(delete("/rest/admin/indexes")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players?race=ELF&banned=false&minExperience=1000")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players?race=ELF&banned=false&minExperience=2000")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players?title=ой")).andExpect(status().isOk());
+
+        String content = mockMvc.perform(get("/rest/admin/indexes"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode report = mapper.readTree(content);
+
+        assertEquals("В отчете должно быть две комбинации фильтров.", 2, report.size());
+        JsonNode first = report.get(0);
+        assertEquals("Самая частая комбинация должна быть первой.", 2L, first.get("count").asLong());
+        assertEquals("Фильтр по race и banned должен обслуживаться составным индексом.",
+                PlayerIndex.RACE_PROFESSION_BANNED.getIndexName(), first.get("index").asText());
+        assertEquals("Фильтр по подстроке title не обслуживается индексом.", 0, report.get(1).get("indexColumnsUsed").asInt());
+    }
+}
@@ -0,0 +1,46 @@
+package com.game.controller;
+
+import org.junit.Test;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class MetricsTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void requestsAreTimedByUriTemplateAndStatus() throws Exception {
+        mockMvc.perform(get("/rest/players/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/415")).andExpect(status().isNotFound());
+
+        String metrics = scrape();
+        assertTrue("Должно считаться время успешных запросов по шаблону адреса.", metrics.contains(
+                "http_server_requests_seconds_count{method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/rest/players/{id}\",}"));
+        assertTrue("Должны считаться запросы с ошибкой.", metrics.contains(
+                "http_server_requests_seconds_count{method=\"GET\",outcome=\"CLIENT_ERROR\",status=\"404\",uri=\"/rest/players/{id}\",}"));
+        assertTrue("Должны публиковаться перцентили времени запросов.", metrics.contains(
+                "http_server_requests_seconds{method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/rest/players/{id}\",quantile=\"0.999\",}"));
+    }
+
+    //test2
+    @Test
+    public void serviceAndRepositoryCallsAreTimed() throws Exception {
+        mockMvc.perform(get("/rest/players?race=ELF")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/415")).andExpect(status().isNotFound());
+
+        String metrics = scrape();
+        assertTrue("Должно считаться время методов сервиса.", metrics.contains(
+                "player_service_seconds_count{method=\"getPlayerPage\",outcome=\"success\",}"));
+        assertTrue("Исключения сервиса должны считаться отдельно.", metrics.contains(
+                "player_service_seconds_count{method=\"findById\",outcome=\"NotFoundException\",}"));
+        assertTrue("Должно считаться количество строк, возвращенных репозиторием.", metrics.contains(
+                "player_repository_rows_sum{method=\"findPage\",}"));
+    }
+
+    private String scrape() throws Exception {
+        return mockMvc.perform(get("/rest/admin/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
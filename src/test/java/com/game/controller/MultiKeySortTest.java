@@ -0,0 +1,97 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class MultiKeySortTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void sortByLevelDescThenName() throws Exception {
+        List<PlayerInfoTest> expected = new ArrayList<>(testsHelper.getAllPlayers());
+        expected.sort(Comparator.<PlayerInfoTest, Integer>comparing(player -> player.level).reversed()
+                .thenComparing(player -> player.name)
+                .thenComparing(player -> player.id));
+
+        assertEquals("Возвращается не правильный порядок при сортировке по нескольким полям.", expected,
+                getPlayers("/rest/players?order=LEVEL:DESC,NAME:ASC&pageSize=40"));
+        assertEquals("Возвращается не правильная страница при сортировке по нескольким полям.",
+                testsHelper.getPlayerInfosByPage(2, 5, expected),
+                getPlayers("/rest/players?order=level:desc,name&pageNumber=2&pageSize=5"));
+    }
+
+    //test2
+    @Test
+    public void singleDescendingKeyBreaksTiesByIdDescending() throws Exception {
+        List<PlayerInfoTest> elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers());
+        List<PlayerInfoTest> expected = new ArrayList<>(elves);
+        expected.sort(Comparator.<PlayerInfoTest, Integer>comparing(player -> player.experience)
+                .thenComparing(player -> player.id).reversed());
+
+        JsonNode page = mapper.readTree(content("/rest/players/page?race=ELF&order=EXPERIENCE:DESC&pageSize=40"));
+        assertEquals("Возвращается не правильный порядок при сортировке по убыванию.", expected,
+                mapper.readValue(page.get("players").toString(), typeReference));
+        assertEquals("Прежний параметр order должен сортировать по возрастанию.",
+                testsHelper.getPlayerInfosSortedBy(PlayerOrder.LEVEL, elves),
+                getPlayers("/rest/players?race=ELF&order=LEVEL&pageSize=40"));
+    }
+
+    //test3
+    @Test
+    public void invalidOrderIsRejected() throws Exception {
+        mockMvc.perform(get("/rest/players?order=LEVEL:UP")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/players?order=LEVEL,LEVEL:DESC")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/players?order=RANK")).andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void indexAdvisorChecksSortDirections() throws Exception {
+        mockMvc.perform(delete("/rest/admin/indexes")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players?order=LEVEL:DESC")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players?order=LEVEL:DESC,NAME:ASC")).andExpect(status().isOk());
+
+        JsonNode report = mapper.readTree(content("/rest/admin/indexes"));
+        assertEquals("В отчете должно быть две сортировки.", 2, report.size());
+        for (JsonNode row : report) {
+            String query = row.get("query").asText();
+            if (query.endsWith("order=level desc")) {
+                assertEquals("Сортировка по убыванию уровня должна читаться из индекса по level.", true,
+                        row.get("sortedByIndex").asBoolean());
+            } else {
+                assertEquals("Неожиданная сортировка в отчете.", true, query.endsWith("order=level desc,name"));
+                assertEquals("Сортировку в разные стороны не обслуживает ни один индекс.", false,
+                        row.get("sortedByIndex").asBoolean());
+            }
+        }
+    }
+
+    private List<PlayerInfoTest> getPlayers(String url) throws Exception {
+        return mapper.readValue(content(url), typeReference);
+    }
+
+    private String content(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
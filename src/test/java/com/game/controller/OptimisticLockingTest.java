@@ -0,0 +1,122 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.models.Player;
+import com.game.service.PlayerService;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class OptimisticLockingTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void getPlayerReturnsVersionInETag() throws Exception {
+        mockMvc.perform(get("/rest/players/5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+    }
+
+    //test2
+    @Test
+    public void updateWithCurrentETagChangesVersion() throws Exception {
+        mockMvc.perform(post("/rest/players/5")
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Новое\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        mockMvc.perform(get("/rest/players/5"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    //test3
+    @Test
+    public void updateWithStaleETagIsRejected() throws Exception {
+        updateName(5, "Первое");
+
+        mockMvc.perform(post("/rest/players/5")
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Второе\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(post("/rest/players/5")
+                .header(HttpHeaders.IF_MATCH, "\"abc\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Второе\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        String content = mockMvc.perform(get("/rest/players/5"))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Изменение с устаревшей версией не должно сохраняться.", "Первое",
+                mapper.readTree(content).get("name").asText());
+    }
+
+    //test4
+    @Test
+    public void concurrentUpdatesAreRetried() throws Exception {
+        PlayerService playerService = context.getBean(PlayerService.class);
+        // попытка записи проигрывает, только если между чтением игрока и UPDATE другой поток записал свое изменение;
+        // у одного потока попытки не пересекаются по времени, поэтому каждый его проигрыш - отдельная запись
+        // одного из остальных потоков. Потоков столько же, сколько попыток по умолчанию (5), и каждый
+        // меняет игрока один раз: поток проигрывает не больше 4 раз, и попыток хватает при любом порядке
+        int threads = 5;
+        CyclicBarrier start = new CyclicBarrier(threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    Player player = new Player();
+                    player.setName("Поток" + thread);
+                    // все потоки начинают одновременно, чтобы изменения действительно пересекались
+                    start.await();
+                    return playerService.updatePlayer(9L, player);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        mockMvc.perform(get("/rest/players/9"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + threads + "\""));
+
+        String content = mockMvc.perform(get("/rest/admin/conflicts"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode conflicts = mapper.readTree(content);
+        assertEquals("Повторы не должны заканчиваться отказом.", 0L, conflicts.get("exhausted").asLong());
+        assertTrue("Должен возвращаться список игроков с наибольшим числом конфликтов.",
+                conflicts.get("hotspots").isArray());
+    }
+
+    private void updateName(long id, String name) throws Exception {
+        mockMvc.perform(post("/rest/players/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"" + name + "\"}"))
+                .andExpect(status().isOk());
+    }
+}
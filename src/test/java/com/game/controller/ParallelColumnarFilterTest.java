@@ -0,0 +1,82 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// порог 1: даже 40 игроков из test.sql делятся на отрезки и проверяются в пуле
+@TestPropertySource(properties = {
+        "player.columnar.enabled=true",
+        "player.columnar.parallelism=3",
+        "player.columnar.parallel-threshold=1"
+})
+public class ParallelColumnarFilterTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    @Before
+    public void rebuildStore() throws Exception {
+        mockMvc.perform(post("/rest/admin/columnar/rebuild")).andExpect(status().isOk());
+    }
+
+    //test1
+    @Test
+    public void parallelFilterKeepsIdOrder() throws Exception {
+        List<PlayerInfoTest> all = testsHelper.getAllPlayers();
+
+        assertEquals("Без фильтров должны возвращаться все игроки по порядку id.", all,
+                getPlayers("/rest/players?pageSize=40"));
+        assertEquals("Возвращается не правильный результат при фильтре по race.",
+                testsHelper.getPlayerInfosByRace(Race.ELF, all), getPlayers("/rest/players?race=ELF&pageSize=40"));
+        assertEquals("Возвращается не правильный результат при фильтре по profession и опыту.",
+                testsHelper.getPlayerInfosByMinExperience(10000,
+                        testsHelper.getPlayerInfosByProfession(Profession.WARRIOR, all)),
+                getPlayers("/rest/players?profession=WARRIOR&minExperience=10000&pageSize=40"));
+        assertEquals("Возвращается не правильное количество игроков.",
+                String.valueOf(testsHelper.getPlayerInfosByBaned(true, all).size()),
+                content("/rest/players/count?banned=true"));
+    }
+
+    //test2
+    @Test
+    public void parallelFilterIsSortedByOrder() throws Exception {
+        List<PlayerInfoTest> all = testsHelper.getAllPlayers();
+        for (PlayerOrder order : PlayerOrder.values()) {
+            assertEquals("Возвращается не правильная страница при сортировке " + order + ".",
+                    testsHelper.getPlayerInfosByPage(1, 9, testsHelper.getPlayerInfosSortedBy(order, all)),
+                    getPlayers("/rest/players?order=" + order + "&pageNumber=1&pageSize=9"));
+        }
+
+        JsonNode stats = mapper.readTree(content("/rest/admin/columnar"));
+        assertEquals("Пул фильтрации должен иметь заданный размер.", 3, stats.get("parallelism").asInt());
+        assertTrue("Запросы должны проверяться параллельно.", stats.get("parallelScans").asLong() > 0);
+    }
+
+    private List<PlayerInfoTest> getPlayers(String url) throws Exception {
+        return mapper.readValue(content(url), typeReference);
+    }
+
+    private String content(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,31 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "db.statistics.enabled=false")
+public class PlayerCacheStatisticsDisabledTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void cacheStatsWithoutStatistics() throws Exception {
+        mockMvc.perform(get("/rest/players/5")).andExpect(status().isOk());
+
+        String content = mockMvc.perform(get("/rest/admin/cache"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode stats = mapper.readTree(content);
+
+        assertEquals("Без статистики Hibernate кэш должен сообщать enabled=false.", false,
+                stats.get("enabled").asBoolean());
+        assertEquals("Без статистики Hibernate не должно быть счетчиков попаданий.", null, stats.get("hits"));
+    }
+}
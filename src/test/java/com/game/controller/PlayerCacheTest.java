@@ -0,0 +1,71 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PlayerCacheTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void repeatedGetPlayerIsServedFromCache() throws Exception {
+        mockMvc.perform(get("/rest/players/5")).andExpect(status().isOk());
+        JsonNode before = cacheStats();
+
+        mockMvc.perform(get("/rest/players/5")).andExpect(status().isOk());
+        JsonNode after = cacheStats();
+
+        assertEquals("Повторное чтение игрока должно попадать в кэш.",
+                before.get("hits").asLong() + 1, after.get("hits").asLong());
+        assertEquals("Повторное чтение игрока не должно обращаться к БД.",
+                before.get("statements").asLong(), after.get("statements").asLong());
+    }
+
+    //test2
+    @Test
+    public void updatePlayerRefreshesCachedPlayer() throws Exception {
+        mockMvc.perform(get("/rest/players/5")).andExpect(status().isOk());
+
+        mockMvc.perform(post("/rest/players/5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Новое\"}"))
+                .andExpect(status().isOk());
+
+        JsonNode player = player(5);
+        assertEquals("После изменения игрока из кэша должно читаться новое значение.", "Новое",
+                player.get("name").asText());
+    }
+
+    //test3
+    @Test
+    public void deletePlayerEvictsCachedPlayer() throws Exception {
+        mockMvc.perform(get("/rest/players/5")).andExpect(status().isOk());
+
+        mockMvc.perform(delete("/rest/players/5")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/players/5")).andExpect(status().isNotFound());
+    }
+
+    private JsonNode player(long id) throws Exception {
+        String content = mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+
+    private JsonNode cacheStats() throws Exception {
+        String content = mockMvc.perform(get("/rest/admin/cache"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+}
@@ -0,0 +1,69 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class QueryCacheTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void sameFiltersWithDefaultsAreServedFromCache() throws Exception {
+        JsonNode before = stats();
+
+        String first = content("/rest/players?race=ELF");
+        String second = content("/rest/players?race=ELF&order=ID&pageNumber=0&pageSize=3");
+        JsonNode after = stats();
+
+        assertEquals("Запросы с одинаковыми фильтрами должны возвращать одинаковый результат.", first, second);
+        assertEquals("Первый запрос должен быть промахом кэша.",
+                before.get("misses").asLong() + 1, after.get("misses").asLong());
+        assertEquals("Запрос с параметрами по умолчанию должен попадать в кэш.",
+                before.get("hits").asLong() + 1, after.get("hits").asLong());
+    }
+
+    //test2
+    @Test
+    public void createPlayerInvalidatesCachedCount() throws Exception {
+        assertEquals("Не правильное количество игроков до создания.", "40", content("/rest/players/count"));
+
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals("После создания игрока количество должно читаться заново.", "41", content("/rest/players/count"));
+    }
+
+    //test3
+    @Test
+    public void deletePlayerInvalidatesCachedPage() throws Exception {
+        String before = content("/rest/players?pageSize=1");
+
+        mockMvc.perform(delete("/rest/players/1")).andExpect(status().isOk());
+
+        JsonNode after = mapper.readTree(content("/rest/players?pageSize=1"));
+        assertEquals("После удаления игрока страница должна читаться заново.", 2L, after.get(0).get("id").asLong());
+        assertEquals("До удаления первым должен быть игрок 1.", 1L, mapper.readTree(before).get(0).get("id").asLong());
+    }
+
+    private String content(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private JsonNode stats() throws Exception {
+        return mapper.readTree(content("/rest/admin/query-cache"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ScrollPlayersTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void scrollAllPlayersOrderByExperience() throws Exception {
+        List<PlayerInfoTest> actual = scrollAll("/rest/players/scroll?order=EXPERIENCE&pageSize=7");
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosSortedBy(PlayerOrder.EXPERIENCE, testsHelper.getAllPlayers());
+
+        assertEquals("Обход по курсору с order=EXPERIENCE возвращает не всех игроков или в неправильном порядке.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void scrollWithDuplicateKeysOrderByLevelAndFilter() throws Exception {
+        // у нескольких игроков одинаковый уровень: порядок внутри уровня определяет id
+        List<PlayerInfoTest> actual = scrollAll("/rest/players/scroll?banned=false&order=LEVEL&pageSize=2");
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosSortedBy(PlayerOrder.LEVEL,
+                testsHelper.getPlayerInfosByBaned(false, testsHelper.getAllPlayers()));
+
+        assertEquals("Обход по курсору с order=LEVEL и banned возвращает не всех игроков или в неправильном порядке.", expected, actual);
+    }
+
+    //test3
+    @Test
+    public void scrollOrderByNameAndBirthday() throws Exception {
+        assertEquals("Обход по курсору с order=NAME возвращает неправильный результат.",
+                testsHelper.getPlayerInfosSortedBy(PlayerOrder.NAME, testsHelper.getAllPlayers()),
+                scrollAll("/rest/players/scroll?order=NAME&pageSize=6"));
+        assertEquals("Обход по курсору с order=BIRTHDAY возвращает неправильный результат.",
+                testsHelper.getPlayerInfosSortedBy(PlayerOrder.BIRTHDAY, testsHelper.getAllPlayers()),
+                scrollAll("/rest/players/scroll?order=BIRTHDAY&pageSize=6"));
+    }
+
+    //test4
+    @Test
+    public void scrollWithInvalidCursor() throws Exception {
+        mockMvc.perform(get("/rest/players/scroll?cursor=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test5
+    @Test
+    public void scrollWithCursorOfAnotherOrder() throws Exception {
+        String next = perform("/rest/players/scroll?order=NAME").get("next").asText();
+
+        mockMvc.perform(get("/rest/players/scroll?order=LEVEL&cursor=" + next))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<PlayerInfoTest> scrollAll(String url) throws Exception {
+        List<PlayerInfoTest> result = new ArrayList<>();
+        JsonNode slice = perform(url);
+        while (true) {
+            result.addAll(Arrays.asList(mapper.treeToValue(slice.get("players"), PlayerInfoTest[].class)));
+            if (slice.get("next").isNull()) {
+                return result;
+            }
+            slice = perform(url + "&cursor=" + slice.get("next").asText());
+        }
+    }
+
+    private JsonNode perform(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn();
+        return mapper.readTree(result.getResponse().getContentAsString());
+    }
+}
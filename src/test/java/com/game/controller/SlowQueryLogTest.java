@@ -0,0 +1,64 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// порог 0 - в журнал попадает каждый запрос
+@TestPropertySource(properties = {"db.slow-query.threshold-ms=0", "db.slow-query.explain=true"})
+public class SlowQueryLogTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void slowQueryHasSqlParamsRowsAndPlan() throws Exception {
+        mockMvc.perform(delete("/rest/admin/slow-queries")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players?race=ELF&pageSize=20")).andExpect(status().isOk());
+
+        JsonNode select = null;
+        for (JsonNode entry : slowQueries().get("recent")) {
+            if (entry.get("sql").asText().toLowerCase().startsWith("select")
+                    && entry.get("params").toString().contains("ELF")) {
+                select = entry;
+            }
+        }
+        assertTrue("Запрос списка игроков должен попасть в журнал с параметрами.", select != null);
+        assertEquals("Должно сохраняться количество прочитанных строк.", 10, select.get("rows").asInt());
+        assertTrue("Должно сохраняться время запроса.", select.get("totalMillis").isNumber());
+        String plan = select.get("explain").asText();
+        assertTrue("К запросу по player должен добавляться план.",
+                !plan.startsWith("EXPLAIN failed") && plan.toLowerCase().contains("player"));
+    }
+
+    //test2
+    @Test
+    public void updatesAreLoggedWithAffectedRows() throws Exception {
+        mockMvc.perform(delete("/rest/admin/slow-queries")).andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players/3")).andExpect(status().isOk());
+
+        boolean found = false;
+        for (JsonNode entry : slowQueries().get("recent")) {
+            if (entry.get("sql").asText().startsWith("DELETE FROM player")) {
+                found = true;
+                assertEquals("Должно сохраняться количество удаленных строк.", 1, entry.get("rows").asInt());
+                assertTrue("У изменений не должно быть плана.", entry.get("explain") == null);
+            }
+        }
+        assertTrue("Удаление должно попасть в журнал.", found);
+    }
+
+    private JsonNode slowQueries() throws Exception {
+        String content = mockMvc.perform(get("/rest/admin/slow-queries"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+}
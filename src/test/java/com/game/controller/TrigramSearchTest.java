@@ -0,0 +1,149 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import com.game.service.PlayerFilter;
+import com.game.service.PlayerSearchIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class TrigramSearchTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    // таблица пересоздается скриптом перед каждым тестом в обход приложения, поэтому индекс строим заново
+    @Before
+    public void rebuildIndex() throws Exception {
+        String content = mockMvc.perform(post("/rest/admin/search-index/rebuild"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("В индексе должны быть все игроки.", testsHelper.getAllPlayers().size(),
+                mapper.readTree(content).get("players").asInt());
+    }
+
+    //test1
+    @Test
+    public void searchByNameUsesCyrillicTrigrams() throws Exception {
+        List<PlayerInfoTest> actual = getPlayers("/rest/players?name=лан&pageSize=40");
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByName("лан", testsHelper.getAllPlayers());
+
+        assertEquals("Возвращается не правильный результат при поиске по name через индекс.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void searchIsCaseSensitiveLikeContains() throws Exception {
+        List<PlayerInfoTest> actual = getPlayers("/rest/players?name=ари&pageSize=40");
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByName("ари", testsHelper.getAllPlayers());
+
+        assertEquals("Индекс не должен менять результат сравнения по подстроке.", expected, actual);
+    }
+
+    //test3
+    @Test
+    public void countByTitleAndRace() throws Exception {
+        String content = mockMvc.perform(get("/rest/players/count?title=Воин&race=GIANT"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int expected = testsHelper.getPlayerInfosByRace(Race.GIANT,
+                testsHelper.getPlayerInfosByTitle("Воин", testsHelper.getAllPlayers())).size();
+
+        assertEquals("Возвращается не правильное количество при поиске по title через индекс.", expected, Integer.parseInt(content));
+    }
+
+    //test4
+    @Test
+    public void searchByNameAndTitleWithoutMatches() throws Exception {
+        List<PlayerInfoTest> actual = getPlayers("/rest/players?name=Ниус&title=Бабушка");
+
+        assertEquals("Не должно быть игроков, подходящих под оба фильтра.", 0, actual.size());
+    }
+
+    //test5
+    @Test
+    public void indexFollowsCreateUpdateAndDelete() throws Exception {
+        String content = mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = mapper.readTree(content).get("id").asLong();
+
+        assertEquals("Созданный игрок должен находиться по имени.", 1, getPlayers("/rest/players?name=мары").size());
+
+        mockMvc.perform(post("/rest/players/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Зерриан\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("После изменения игрок не должен находиться по старому имени.", 0, getPlayers("/rest/players?name=мары").size());
+        assertEquals("После изменения игрок должен находиться по новому имени.", 1, getPlayers("/rest/players?name=ерриа").size());
+
+        mockMvc.perform(delete("/rest/players/" + id)).andExpect(status().isOk());
+
+        assertEquals("Удаленный игрок не должен находиться.", 0, getPlayers("/rest/players?name=ерриа").size());
+        JsonNode stats = mapper.readTree(mockMvc.perform(get("/rest/admin/search-index"))
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Удаленный игрок должен быть убран из индекса.", testsHelper.getAllPlayers().size(), stats.get("players").asInt());
+    }
+
+    //test6
+    @Test
+    public void candidatesIgnoreCaseAndDiacriticsLikeCollation() throws Exception {
+        long alena = createPlayer("Алёна");
+        long strasse = createPlayer("Straße");
+        PlayerSearchIndex searchIndex = context.getBean(PlayerSearchIndex.class);
+
+        // по collation utf8_general_ci (MySQL) «ален» и «АЛЁН» совпадают с «Алёна», поэтому игрок должен быть кандидатом
+        for (String name : new String[]{"ален", "АЛЁН", "Алён"}) {
+            long[] candidates = searchIndex.candidates(byName(name));
+            assertTrue("Игрок должен быть кандидатом по имени " + name + ".",
+                    Arrays.binarySearch(candidates, alena) >= 0);
+            assertTrue("Имя с символами без надежной свертки должно быть кандидатом по имени " + name + ".",
+                    Arrays.binarySearch(candidates, strasse) >= 0);
+        }
+        assertNull("По подстроке без надежной свертки индекс не должен сужать поиск.",
+                searchIndex.candidates(byName("aße")));
+        assertEquals("Возвращается не правильный результат при поиске по имени с ё.", 1,
+                getPlayers("/rest/players?name=лён").size());
+    }
+
+    private long createPlayer(String name) throws Exception {
+        String content = mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON.replace("Амарылис", name)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content).get("id").asLong();
+    }
+
+    private static PlayerFilter byName(String name) {
+        return new PlayerFilter(name, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    private List<PlayerInfoTest> getPlayers(String url) throws Exception {
+        String content = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, typeReference);
+    }
+}
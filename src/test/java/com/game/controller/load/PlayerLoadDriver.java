@@ -0,0 +1,258 @@
+package com.game.controller.load;
+
+import com.game.config.AppConfig;
+import com.game.controller.PlayerOrder;
+import com.game.models.Player;
+import com.game.service.PlayerDataset;
+import com.game.service.PlayerFilter;
+import com.game.service.PlayerGenerator;
+import org.HdrHistogram.Histogram;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * нагрузочная проверка PlayerController на встроенной H2 (профиль dev)
+ * БД заполняется load.players синтетическими игроками, затем load.threads потоков load.duration-s секунд
+ * отправляют запросы в смеси load.mix (операция:доля) через DispatcherServlet, JSON и весь стек приложения,
+ * но без сети; первые load.warmup-s секунд не учитываются
+ * по каждой операции печатаются количество, запросов в секунду, p50/p99/p999 и максимум задержки
+ * и число ответов не 2xx (404 у get/update/delete - игрок уже удален другим запросом)
+ * запуск: mvn -B -Pload test-compile exec:java -Dload.players=1000000 -Dload.threads=16
+ */
+public class PlayerLoadDriver {
+
+    enum Operation {
+        LIST, COUNT, GET, CREATE, UPDATE, DELETE
+    }
+
+    private static final String DEFAULT_MIX = "list:40,count:10,get:30,create:8,update:10,delete:2";
+
+    // задержки до минуты в микросекундах с точностью 3 значащих цифры
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    public static void main(String[] args) throws Exception {
+        int players = Integer.getInteger("load.players", 100000);
+        int threads = Integer.getInteger("load.threads", 8);
+        int warmupSeconds = Integer.getInteger("load.warmup-s", 10);
+        int durationSeconds = Integer.getInteger("load.duration-s", 30);
+        long seed = Long.getLong("load.seed", 42);
+        int[] mix = parseMix(System.getProperty("load.mix", DEFAULT_MIX));
+
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class);
+        context.refresh();
+        try {
+            long started = System.nanoTime();
+            PlayerDataset.load(context, players, seed);
+            System.out.printf("loaded %d players in %d ms%n", players,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+            MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+            // 40 игроков из test.sql и сгенерированные; id новых игроков идут подряд
+            AtomicLong maxId = new AtomicLong(40 + players);
+
+            long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<Worker>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Worker worker = new Worker(mockMvc, mix, maxId, seed + t + 1);
+                futures.add(executor.submit(() -> worker.run(warmupEnd, end)));
+            }
+            Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+            long[] failures = new long[Operation.values().length];
+            for (Future<Worker> future : futures) {
+                Worker worker = future.get();
+                worker.latencies.forEach((operation, histogram) ->
+                        latencies.computeIfAbsent(operation, key -> histogram(key)).add(histogram));
+                for (int i = 0; i < failures.length; i++) {
+                    failures[i] += worker.failures[i];
+                }
+            }
+            executor.shutdown();
+            report(latencies, failures, durationSeconds, threads);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static int[] parseMix(String value) {
+        int[] mix = new int[Operation.values().length];
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split(":");
+            mix[Operation.valueOf(pair[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(pair[1].trim());
+        }
+        return mix;
+    }
+
+    private static Histogram histogram(Operation operation) {
+        return new Histogram(MAX_LATENCY_MICROS, 3);
+    }
+
+    private static void report(Map<Operation, Histogram> latencies, long[] failures, int seconds, int threads) {
+        System.out.printf("%d threads, %d s%n", threads, seconds);
+        System.out.printf("%-8s %10s %10s %10s %10s %10s %10s %8s%n",
+                "op", "count", "ops/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "non-2xx");
+        Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+        long totalFailures = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            if (histogram == null || histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            totalFailures += failures[operation.ordinal()];
+            printRow(operation.name().toLowerCase(), histogram, failures[operation.ordinal()], seconds);
+        }
+        printRow("total", total, totalFailures, seconds);
+    }
+
+    private static void printRow(String name, Histogram histogram, long failures, int seconds) {
+        System.out.printf("%-8s %10d %10.1f %10.3f %10.3f %10.3f %10.3f %8d%n", name,
+                histogram.getTotalCount(), (double) histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0, failures);
+    }
+
+    /**
+     * поток нагрузки: свои генератор, гистограммы и счетчики, общие только MockMvc и счетчик id
+     */
+    private static class Worker {
+
+        private final MockMvc mockMvc;
+        private final int[] mix;
+        private final int mixTotal;
+        private final AtomicLong maxId;
+        private final Random random;
+        private final PlayerGenerator generator;
+
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final long[] failures = new long[Operation.values().length];
+
+        Worker(MockMvc mockMvc, int[] mix, AtomicLong maxId, long seed) {
+            this.mockMvc = mockMvc;
+            this.mix = mix;
+            int total = 0;
+            for (int weight : mix) {
+                total += weight;
+            }
+            this.mixTotal = total;
+            this.maxId = maxId;
+            this.random = new Random(seed);
+            this.generator = new PlayerGenerator(seed);
+        }
+
+        Worker run(long warmupEnd, long end) throws Exception {
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                Operation operation = nextOperation();
+                MockHttpServletRequestBuilder request = request(operation);
+                int status = mockMvc.perform(request).andReturn().getResponse().getStatus();
+                long latency = System.nanoTime() - now;
+                if (operation == Operation.CREATE && status == 200) {
+                    maxId.incrementAndGet();
+                }
+                if (now >= warmupEnd) {
+                    latencies.computeIfAbsent(operation, PlayerLoadDriver::histogram)
+                            .recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(latency)));
+                    if (status < 200 || status >= 300) {
+                        failures[operation.ordinal()]++;
+                    }
+                }
+            }
+            return this;
+        }
+
+        private Operation nextOperation() {
+            int value = random.nextInt(mixTotal);
+            for (Operation operation : Operation.values()) {
+                value -= mix[operation.ordinal()];
+                if (value < 0) {
+                    return operation;
+                }
+            }
+            return Operation.LIST;
+        }
+
+        private MockHttpServletRequestBuilder request(Operation operation) {
+            switch (operation) {
+                case LIST:
+                    return filter(get("/rest/players"), generator.filter())
+                            .param("order", PlayerOrder.values()[random.nextInt(PlayerOrder.values().length)].name())
+                            .param("pageNumber", Integer.toString(random.nextInt(5)))
+                            .param("pageSize", "20");
+                case COUNT:
+                    return filter(get("/rest/players/count"), generator.filter());
+                case GET:
+                    return get("/rest/players/" + randomId());
+                case CREATE:
+                    return post("/rest/players").contentType(MediaType.APPLICATION_JSON).content(json(generator.next()));
+                case UPDATE:
+                    return post("/rest/players/" + randomId()).contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"" + generator.name() + "\",\"experience\":" + generator.experience() + "}");
+                case DELETE:
+                    return delete("/rest/players/" + randomId());
+                default:
+                    throw new IllegalArgumentException(operation.name());
+            }
+        }
+
+        private long randomId() {
+            return 1 + (long) (random.nextDouble() * maxId.get());
+        }
+
+        private static MockHttpServletRequestBuilder filter(MockHttpServletRequestBuilder request, PlayerFilter filter) {
+            param(request, "name", filter.getName());
+            param(request, "title", filter.getTitle());
+            param(request, "race", filter.getRace());
+            param(request, "profession", filter.getProfession());
+            param(request, "after", filter.getAfter());
+            param(request, "before", filter.getBefore());
+            param(request, "banned", filter.getBanned());
+            param(request, "minExperience", filter.getMinExperience());
+            param(request, "maxExperience", filter.getMaxExperience());
+            param(request, "minLevel", filter.getMinLevel());
+            param(request, "maxLevel", filter.getMaxLevel());
+            return request;
+        }
+
+        private static void param(MockHttpServletRequestBuilder request, String name, Object value) {
+            if (value != null) {
+                request.param(name, value.toString());
+            }
+        }
+
+        private static String json(Player player) {
+            return "{" +
+                    "\"name\":\"" + player.getName() + "\"," +
+                    "\"title\":\"" + player.getTitle() + "\"," +
+                    "\"race\":\"" + player.getRace() + "\"," +
+                    "\"profession\":\"" + player.getProfession() + "\"," +
+                    "\"birthday\":" + player.getBirthday().getTime() + "," +
+                    "\"banned\":" + player.getBanned() + "," +
+                    "\"experience\":" + player.getExperience() +
+                    "}";
+        }
+    }
+}
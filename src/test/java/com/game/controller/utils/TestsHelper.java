@@ -7,6 +7,7 @@ import com.game.entity.Race;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 public class TestsHelper {
@@ -301,6 +302,28 @@ public class TestsHelper {
         return result;
     }
 
+    public List<PlayerInfoTest> getPlayerInfosSortedBy(PlayerOrder order, List<PlayerInfoTest> players) {
+        List<PlayerInfoTest> result = new ArrayList<>(players);
+        switch (order) {
+            case ID:
+                result.sort(Comparator.comparing(player -> player.id));
+                break;
+            case NAME:
+                result.sort(Comparator.comparing(player -> player.name));
+                break;
+            case EXPERIENCE:
+                result.sort(Comparator.comparing(player -> player.experience));
+                break;
+            case BIRTHDAY:
+                result.sort(Comparator.comparing(player -> player.birthday));
+                break;
+            case LEVEL:
+                result.sort(Comparator.comparing(player -> player.level));
+                break;
+        }
+        return result;
+    }
+
     public PlayerInfoTest getPlayerInfosById(long id) {
         return allPlayers.stream().filter(s -> s.id == id).findFirst().orElse(null);
     }
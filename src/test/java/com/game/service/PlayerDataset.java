@@ -0,0 +1,29 @@
+package com.game.service;
+
+import com.game.repository.PlayerRepository;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * заполнение БД приложения (обычно встроенной H2 профиля dev) синтетическими игроками PlayerGenerator
+ * игроки записываются пачками INSERT в обход сервиса, поэтому после записи индекс поиска
+ * и хранилище по столбцам (если включено) строятся заново,
+ * а кэш результатов запросов сбрасывается
+ */
+public final class PlayerDataset {
+
+    private static final int LOAD_BATCH_SIZE = 10000;
+
+    private PlayerDataset() {
+    }
+
+    public static void load(ApplicationContext context, int count, long seed) {
+        PlayerRepository playerRepository = context.getBean(PlayerRepository.class);
+        PlayerGenerator generator = new PlayerGenerator(seed);
+        for (int loaded = 0; loaded < count; loaded += LOAD_BATCH_SIZE) {
+            playerRepository.insertAll(generator.generate(Math.min(LOAD_BATCH_SIZE, count - loaded)));
+        }
+        context.getBean(PlayerSearchIndex.class).rebuild();
+        context.getBean(PlayerColumnStore.class).rebuild();
+        context.getBean(PlayerQueryCache.class).invalidate();
+    }
+}
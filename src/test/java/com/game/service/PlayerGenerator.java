@@ -0,0 +1,169 @@
+package com.game.service;
+
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.models.Player;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * синтетические игроки для бенчмарков и нагрузочных проверок
+ * все игроки проходят проверки PlayerServiceImpl: имя до 12 символов, титул до 30, опыт 0..10,000,000,
+ * дата регистрации 2000..3000 годов; уровень и опыт до следующего уровня вычисляются как в сервисе
+ * распределения похожи на test.sql: опыт логнормальный с медианой около 60,000 и длинным хвостом,
+ * расы и профессии встречаются неравномерно, регистрации приходятся на 2000-2015 годы, забанен каждый десятый
+ * filter() дает фильтры GET /rest/players в похожей на реальные запросы смеси:
+ * раса и профессия - 30%, часть имени - 20%, диапазон опыта - 20%, диапазон уровня без забаненных - 15%,
+ * годы регистрации - 10%, раса и забаненные - 5%
+ * при одном и том же seed получается одна и та же последовательность игроков и фильтров
+ */
+public class PlayerGenerator {
+
+    private static final String[] NAME_PARTS = {
+            "Ар", "Бэ", "Ва", "Гор", "Да", "Эл", "Жи", "За", "Ил", "Ка", "Ли", "Ма", "Ни", "Ор", "Пэ",
+            "Ра", "Си", "Та", "Ур", "Фа", "Хар", "Це", "Эз", "Юл", "Ян", "лан", "рин", "дор", "вин", "мир"
+    };
+
+    private static final String[] TITLE_ADJECTIVES = {
+            "Темный", "Светлый", "Быстрый", "Тихий", "Старый", "Молодой", "Северный", "Южный",
+            "Смелый", "Мудрый", "Хитрый", "Великий", "Красный", "Серый", "Железный", "Лесной"
+    };
+
+    private static final String[] TITLE_NOUNS = {
+            "Странник", "Идеолог", "Охотник", "Маг", "Воин", "Бард", "Страж", "Лучник",
+            "Целитель", "Кузнец", "Летун", "Бедуин", "Рыцарь", "Шаман", "Следопыт", "Эльфенок"
+    };
+
+    // доли рас и профессий в порядке объявления в enum
+    private static final int[] RACE_WEIGHTS = {30, 15, 20, 5, 12, 8, 10};
+    private static final int[] PROFESSION_WEIGHTS = {20, 18, 14, 10, 8, 4, 12, 14};
+
+    private static final double EXPERIENCE_LOG_MEDIAN = Math.log(60000);
+    private static final double EXPERIENCE_LOG_DEVIATION = 1.5;
+
+    private static final long FIRST_BIRTHDAY = utcDate(2000, Calendar.JANUARY, 2);
+    private static final long LAST_BIRTHDAY = utcDate(2015, Calendar.DECEMBER, 31);
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    // имена и титулы берутся из общих пулов, чтобы миллионы игроков не держали миллионы одинаковых строк
+    private static final String[] NAMES = names();
+    private static final String[] TITLES = titles();
+
+    private final Random random;
+
+    public PlayerGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public List<Player> generate(int count) {
+        List<Player> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            players.add(next());
+        }
+        return players;
+    }
+
+    public Player next() {
+        Player player = new Player();
+        player.setName(NAMES[random.nextInt(NAMES.length)]);
+        player.setTitle(TITLES[random.nextInt(TITLES.length)]);
+        player.setRace(Race.values()[weighted(RACE_WEIGHTS)]);
+        player.setProfession(Profession.values()[weighted(PROFESSION_WEIGHTS)]);
+        long days = (LAST_BIRTHDAY - FIRST_BIRTHDAY) / DAY;
+        player.setBirthday(new Date(FIRST_BIRTHDAY + (long) (random.nextDouble() * days) * DAY));
+        player.setBanned(random.nextInt(10) == 0);
+        player.setExperience(experience());
+        player.setLevel(PlayerServiceImpl.calculateLevel(player));
+        player.setUntilNextLevel(PlayerServiceImpl.calculateUntilNextLevel(player));
+        return player;
+    }
+
+    /**
+     * имя из пула генератора (для фильтров ?name=, которые что-то находят)
+     */
+    public String name() {
+        return NAMES[random.nextInt(NAMES.length)];
+    }
+
+    public PlayerFilter filter() {
+        int kind = random.nextInt(100);
+        Race race = Race.values()[random.nextInt(Race.values().length)];
+        if (kind < 30) {
+            Profession profession = Profession.values()[random.nextInt(Profession.values().length)];
+            return new PlayerFilter(null, null, race, profession, null, null, null, null, null, null, null);
+        } else if (kind < 50) {
+            String name = name();
+            int start = random.nextInt(name.length() - 2);
+            return new PlayerFilter(name.substring(start, start + 3), null, null, null, null, null, null,
+                    null, null, null, null);
+        } else if (kind < 70) {
+            int experience = experience();
+            return new PlayerFilter(null, null, null, null, null, null, null,
+                    experience, experience + experience / 50, null, null);
+        } else if (kind < 85) {
+            int level = random.nextInt(100);
+            return new PlayerFilter(null, null, null, null, null, null, false, null, null, level, level + 2);
+        } else if (kind < 95) {
+            int year = 2000 + random.nextInt(16);
+            return new PlayerFilter(null, null, null, null, utcDate(year, Calendar.JANUARY, 1),
+                    utcDate(year + 1, Calendar.JANUARY, 1), null, null, null, null, null);
+        } else {
+            return new PlayerFilter(null, null, race, null, null, null, true, null, null, null, null);
+        }
+    }
+
+    public int experience() {
+        double experience = Math.exp(EXPERIENCE_LOG_MEDIAN + EXPERIENCE_LOG_DEVIATION * random.nextGaussian());
+        return (int) Math.min(PlayerServiceImpl.MAX_EXPERIENCE, experience);
+    }
+
+    private int weighted(int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int value = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static String[] names() {
+        List<String> names = new ArrayList<>();
+        for (String first : NAME_PARTS) {
+            for (String second : NAME_PARTS) {
+                names.add(first + second.toLowerCase());
+                for (String third : NAME_PARTS) {
+                    names.add(first + second.toLowerCase() + third.toLowerCase());
+                }
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    private static String[] titles() {
+        List<String> titles = new ArrayList<>();
+        for (String adjective : TITLE_ADJECTIVES) {
+            for (String noun : TITLE_NOUNS) {
+                titles.add(adjective + " " + noun);
+            }
+        }
+        return titles.toArray(new String[0]);
+    }
+
+    private static long utcDate(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(year, month, day);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,93 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.models.Player;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+public class PlayerSelectionTest {
+
+    //test1
+    @Test
+    public void pageMatchesFullSort() {
+        List<Player> byId = players(200);
+        List<Player> shuffled = new ArrayList<>(byId);
+        Collections.shuffle(shuffled, new Random(42));
+
+        for (PlayerOrder order : PlayerOrder.values()) {
+            for (PlayerSort sort : new PlayerSort[]{PlayerSort.of(order), PlayerSort.valueOf(order.name() + ":DESC")}) {
+                List<Player> sorted = new ArrayList<>(byId);
+                sorted.sort(comparator(sort));
+                for (int pageNumber = 0; pageNumber < 25; pageNumber += 6) {
+                    assertEquals("Возвращается не правильная страница " + pageNumber + " при сортировке " + sort + ".",
+                            ids(sorted.subList(Math.min(pageNumber * 9, sorted.size()),
+                                    Math.min(pageNumber * 9 + 9, sorted.size()))),
+                            ids(PlayerSelection.page(shuffled, sort, pageNumber, 9)));
+                }
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void pageDoesNotChangeList() {
+        List<Player> players = players(20);
+        List<Long> before = ids(players);
+
+        assertEquals("Страница должна содержать pageSize игроков.", 3,
+                PlayerSelection.page(players, PlayerSort.of(PlayerOrder.LEVEL), 0, 3).size());
+        assertEquals("Последняя страница должна содержать оставшихся игроков.", 2,
+                PlayerSelection.page(players, PlayerSort.of(PlayerOrder.LEVEL), 6, 3).size());
+        assertEquals("Страница за концом списка должна быть пустой.", 0,
+                PlayerSelection.page(players, PlayerSort.of(PlayerOrder.NAME), 100, 3).size());
+        assertEquals("Список не должен изменяться.", before, ids(players));
+    }
+
+    // игроки генератора с id по порядку; имена и уровни повторяются, поэтому порядок при равенстве решает id
+    private static List<Player> players(int count) {
+        List<Player> players = new PlayerGenerator(7).generate(count);
+        for (int i = 0; i < count; i++) {
+            players.get(i).setId((long) i + 1);
+        }
+        return players;
+    }
+
+    // полная сортировка для сравнения: поля sort, затем id в направлении последнего поля
+    private static Comparator<Player> comparator(PlayerSort sort) {
+        Comparator<Player> comparator = null;
+        for (PlayerSort.Key key : sort.getKeys()) {
+            Comparator<Player> next = comparator(key.getField());
+            next = key.isDescending() ? next.reversed() : next;
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<Player> byId = Comparator.comparing(Player::getId);
+        return comparator.thenComparing(sort.isIdDescending() ? byId.reversed() : byId);
+    }
+
+    private static Comparator<Player> comparator(PlayerOrder order) {
+        switch (order) {
+            case NAME:
+                return Comparator.comparing(Player::getName);
+            case EXPERIENCE:
+                return Comparator.comparing(Player::getExperience);
+            case BIRTHDAY:
+                return Comparator.comparing(Player::getBirthday);
+            case LEVEL:
+                return Comparator.comparing(Player::getLevel);
+            default:
+                return Comparator.comparing(Player::getId);
+        }
+    }
+
+    private static List<Long> ids(List<Player> players) {
+        return players.stream().map(Player::getId).collect(Collectors.toList());
+    }
+}
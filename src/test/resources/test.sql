@@ -12,9 +12,18 @@ CREATE TABLE player
     experience     INT(10)     NULL,
     level          INT(3)      NULL,
     untilNextLevel INT(10)     NULL,
+    version        BIGINT(20)  NOT NULL DEFAULT 0,
     PRIMARY KEY (id)
 );
 
+-- индексы под частые фильтры и сортировки GET /rest/players (см. com.game.repository.PlayerIndex)
+CREATE INDEX idx_player_race_profession_banned ON player (race, profession, banned, experience, level);
+CREATE INDEX idx_player_banned_level ON player (banned, level);
+CREATE INDEX idx_player_experience ON player (experience);
+CREATE INDEX idx_player_level ON player (level);
+CREATE INDEX idx_player_birthday ON player (birthday);
+CREATE INDEX idx_player_name ON player (name);
+
 INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel)
 VALUES ('Ниус', 'Приходящий Без Шума', 'HOBBIT', 'ROGUE', '2010-10-12', false, 58347, 33, 1153)
      , ('Никрашш', 'НайтВульф', 'ORC', 'WARLOCK', '2010-02-14', false, 174403, 58, 2597)